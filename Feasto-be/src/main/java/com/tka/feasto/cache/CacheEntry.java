@@ -0,0 +1,28 @@
+package com.tka.feasto.cache;
+
+import java.io.Serializable;
+
+/**
+ * Value stored in regions that have a refresh policy: the cached value plus
+ * when it was loaded, so reads can tell a fresh entry from a stale one.
+ */
+public class CacheEntry implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final Object value;
+    private final long loadedAtMillis;
+
+    public CacheEntry(Object value, long loadedAtMillis) {
+        this.value = value;
+        this.loadedAtMillis = loadedAtMillis;
+    }
+
+    public Object getValue() {
+        return value;
+    }
+
+    public long getLoadedAtMillis() {
+        return loadedAtMillis;
+    }
+}
@@ -0,0 +1,42 @@
+package com.tka.feasto.cache;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Data;
+
+/**
+ * Per-alias read policies for the Spring caches, e.g.
+ *
+ * <pre>
+ * feasto.cache.policies.restaurantsAll.refresh-after=10m
+ * feasto.cache.policies.restaurantsAll.stale-if-error=true
+ * </pre>
+ *
+ * The ehcache.xml TTL of an alias with a policy is the hard limit: the window
+ * between refresh-after and that TTL is how long a stale value may be served.
+ */
+@Data
+@ConfigurationProperties(prefix = "feasto.cache")
+public class CachePolicyProperties {
+
+    private Map<String, Policy> policies = new HashMap<>();
+
+    public Policy policyFor(String cacheName) {
+        Policy policy = policies.get(cacheName);
+        return policy != null && policy.getRefreshAfter() != null ? policy : null;
+    }
+
+    @Data
+    public static class Policy {
+        // Entries older than this are reloaded in the background on the next
+        // read while the current value keeps being served
+        private Duration refreshAfter;
+        // Keep serving the old value (until the ehcache.xml TTL) when a
+        // background reload fails; false evicts it so the next read reloads
+        private boolean staleIfError = true;
+    }
+}
@@ -0,0 +1,104 @@
+package com.tka.feasto.cache;
+
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.ehcache.config.CacheRuntimeConfiguration;
+import org.ehcache.config.ResourcePool;
+import org.ehcache.config.ResourcePools;
+import org.ehcache.config.ResourceType;
+import org.ehcache.config.SizedResourcePool;
+import org.ehcache.jsr107.Eh107Configuration;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+/**
+ * {@code /actuator/cacheregions}: JSR-107 statistics and configured tiers of
+ * every region in the JCache manager, Spring caches and Hibernate L2 regions
+ * alike, for sizing ehcache.xml and feasto.cache.regions.* from real data.
+ *
+ * Read-only and cheap: the numbers come from the statistics MBeans that
+ * ehcache.xml enables, never from walking the region. estimatedEntries is
+ * puts - removals - evictions, an upper bound that still counts overwritten
+ * keys and entries that expired without being read again.
+ */
+@Component
+@Endpoint(id = "cacheregions")
+public class CacheRegionsEndpoint {
+
+    @Autowired
+    private javax.cache.CacheManager jCacheManager;
+
+    private final MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+
+    @ReadOperation
+    public Map<String, Map<String, Object>> regions() {
+        Map<String, Map<String, Object>> regions = new TreeMap<>();
+        for (String name : jCacheManager.getCacheNames()) {
+            javax.cache.Cache<Object, Object> cache = jCacheManager.getCache(name);
+            if (cache == null || cache.isClosed())
+                continue;
+            Map<String, Object> region = new LinkedHashMap<>();
+            region.putAll(statistics(name));
+            region.put("tiers", tiers(cache));
+            regions.put(name, region);
+        }
+        return regions;
+    }
+
+    // Same MBean naming as JCacheMetrics (and the JSR-107 RI)
+    private Map<String, Object> statistics(String cacheName) {
+        Map<String, Object> statistics = new LinkedHashMap<>();
+        try {
+            ObjectName name = new ObjectName("javax.cache:type=CacheStatistics,CacheManager="
+                    + sanitize(jCacheManager.getURI().toString()) + ",Cache=" + sanitize(cacheName));
+            if (!mBeanServer.isRegistered(name))
+                return statistics;
+            long puts = attribute(name, "CachePuts");
+            long removals = attribute(name, "CacheRemovals");
+            long evictions = attribute(name, "CacheEvictions");
+            statistics.put("estimatedEntries", Math.max(0, puts - removals - evictions));
+            statistics.put("hits", attribute(name, "CacheHits"));
+            statistics.put("misses", attribute(name, "CacheMisses"));
+            statistics.put("puts", puts);
+            statistics.put("removals", removals);
+            statistics.put("evictions", evictions);
+        } catch (JMException ex) {
+            statistics.put("error", ex.getMessage());
+        }
+        return statistics;
+    }
+
+    private long attribute(ObjectName name, String attribute) throws JMException {
+        return ((Number) mBeanServer.getAttribute(name, attribute)).longValue();
+    }
+
+    private static String sanitize(String value) {
+        return value.replaceAll(",|:|=|\n", ".");
+    }
+
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private Map<String, String> tiers(javax.cache.Cache<Object, Object> cache) {
+        Map<String, String> tiers = new LinkedHashMap<>();
+        Eh107Configuration<Object, Object> configuration = cache.getConfiguration(Eh107Configuration.class);
+        ResourcePools pools = configuration.unwrap(CacheRuntimeConfiguration.class).getResourcePools();
+        for (ResourceType<?> type : pools.getResourceTypeSet()) {
+            ResourcePool pool = pools.getPoolForResource((ResourceType) type);
+            if (pool instanceof SizedResourcePool) {
+                SizedResourcePool sized = (SizedResourcePool) pool;
+                tiers.put(type.toString().toLowerCase(Locale.ROOT), sized.getSize() + " " + sized.getUnit()
+                        + (sized.isPersistent() ? " (persistent)" : ""));
+            }
+        }
+        return tiers;
+    }
+}
@@ -0,0 +1,39 @@
+package com.tka.feasto.cache;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import lombok.Data;
+
+/**
+ * Per-alias storage tiers overriding the entry-count heap sizes in ehcache.xml,
+ * e.g.
+ *
+ * <pre>
+ * feasto.cache.regions.ordersByRestaurant.heap-entries=200
+ * feasto.cache.regions.ordersByRestaurant.offheap=64MB
+ * </pre>
+ *
+ * Off-heap values are stored serialized (see {@link CacheValueSerializer}) and
+ * count against -XX:MaxDirectMemorySize, not the Java heap.
+ */
+@Data
+@ConfigurationProperties(prefix = "feasto.cache")
+public class CacheTierProperties {
+
+    private Map<String, Tiers> regions = new HashMap<>();
+
+    @Data
+    public static class Tiers {
+        // On-heap tier as an entry count
+        private Long heapEntries;
+        // On-heap tier in bytes instead of entries; sized by Ehcache's object
+        // graph walker, which is slower than counting entries
+        private DataSize heap;
+        // Off-heap tier in bytes
+        private DataSize offheap;
+    }
+}
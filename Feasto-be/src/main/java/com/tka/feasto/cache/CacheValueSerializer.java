@@ -0,0 +1,137 @@
+package com.tka.feasto.cache;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.nio.ByteBuffer;
+
+import org.ehcache.spi.serialization.SerializerException;
+import org.ehcache.spi.serialization.Serializer;
+
+import com.tka.feasto.index.NearbyCandidates;
+
+/**
+ * Ehcache serializer for keys and values that leave the heap (off-heap and
+ * disk tiers). Nearby candidate sets, the largest and most frequently read
+ * off-heap values, are written as raw primitive arrays; everything else
+ * (DTOs, pages, Spring's cache keys) uses Java serialization.
+ */
+public class CacheValueSerializer implements Serializer<Object> {
+
+    private static final byte JAVA = 0;
+    private static final byte NEARBY_CANDIDATES = 1;
+
+    private final ClassLoader classLoader;
+
+    // Ehcache instantiates serializers reflectively with the cache's class loader
+    public CacheValueSerializer(ClassLoader classLoader) {
+        this.classLoader = classLoader;
+    }
+
+    @Override
+    public ByteBuffer serialize(Object object) throws SerializerException {
+        if (object instanceof NearbyCandidates)
+            return writeCandidates((NearbyCandidates) object);
+        try (ByteArrayOutputStream bytes = new ByteArrayOutputStream()) {
+            bytes.write(JAVA);
+            try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+                out.writeObject(object);
+            }
+            return ByteBuffer.wrap(bytes.toByteArray());
+        } catch (IOException ex) {
+            throw new SerializerException("Cannot serialize " + object.getClass().getName(), ex);
+        }
+    }
+
+    @Override
+    public Object read(ByteBuffer binary) throws ClassNotFoundException, SerializerException {
+        ByteBuffer buffer = binary.duplicate();
+        byte format = buffer.get();
+        if (format == NEARBY_CANDIDATES)
+            return readCandidates(buffer);
+        try (ObjectInputStream in = new ClassLoaderObjectInputStream(new ByteBufferInputStream(buffer), classLoader)) {
+            return in.readObject();
+        } catch (IOException ex) {
+            throw new SerializerException("Cannot deserialize cache value", ex);
+        }
+    }
+
+    @Override
+    public boolean equals(Object object, ByteBuffer binary) throws ClassNotFoundException, SerializerException {
+        return serialize(object).equals(binary.duplicate());
+    }
+
+    private static ByteBuffer writeCandidates(NearbyCandidates candidates) {
+        int n = candidates.size();
+        ByteBuffer buffer = ByteBuffer.allocate(1 + Integer.BYTES + n * (Long.BYTES + 3 * Double.BYTES));
+        buffer.put(NEARBY_CANDIDATES).putInt(n);
+        buffer.asLongBuffer().put(candidates.getRestaurantIds());
+        buffer.position(buffer.position() + n * Long.BYTES);
+        for (double[] column : new double[][] { candidates.getLatitudes(), candidates.getLongitudes(),
+                candidates.getRatings() }) {
+            buffer.asDoubleBuffer().put(column);
+            buffer.position(buffer.position() + n * Double.BYTES);
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    private static NearbyCandidates readCandidates(ByteBuffer buffer) {
+        int n = buffer.getInt();
+        long[] ids = new long[n];
+        buffer.asLongBuffer().get(ids);
+        buffer.position(buffer.position() + n * Long.BYTES);
+        double[][] columns = new double[3][n];
+        for (double[] column : columns) {
+            buffer.asDoubleBuffer().get(column);
+            buffer.position(buffer.position() + n * Double.BYTES);
+        }
+        return new NearbyCandidates(ids, columns[0], columns[1], columns[2]);
+    }
+
+    // Resolves classes against the cache's class loader (devtools restarts the
+    // application with its own loader)
+    private static class ClassLoaderObjectInputStream extends ObjectInputStream {
+        private final ClassLoader classLoader;
+
+        ClassLoaderObjectInputStream(InputStream in, ClassLoader classLoader) throws IOException {
+            super(in);
+            this.classLoader = classLoader;
+        }
+
+        @Override
+        protected Class<?> resolveClass(ObjectStreamClass desc) throws IOException, ClassNotFoundException {
+            try {
+                return Class.forName(desc.getName(), false, classLoader);
+            } catch (ClassNotFoundException ex) {
+                return super.resolveClass(desc);
+            }
+        }
+    }
+
+    private static class ByteBufferInputStream extends InputStream {
+        private final ByteBuffer buffer;
+
+        ByteBufferInputStream(ByteBuffer buffer) {
+            this.buffer = buffer;
+        }
+
+        @Override
+        public int read() {
+            return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+            if (!buffer.hasRemaining())
+                return -1;
+            int n = Math.min(len, buffer.remaining());
+            buffer.get(b, off, n);
+            return n;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.tka.feasto.cache;
+
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import com.tka.feasto.repository.RestaurantRepository;
+import com.tka.feasto.service.RestaurantService;
+import com.tka.feasto.service.ReviewService;
+
+/**
+ * Fills the catalog caches before the node takes traffic. Application runners
+ * complete before Spring Boot publishes readiness (ACCEPTING_TRAFFIC), so the
+ * actuator readiness probe stays down until the warm-up has finished or timed
+ * out.
+ *
+ * Loads go through the service methods, so both the Spring caches
+ * (restaurantById, menuItemsByRestaurant, reviewsByRestaurant, restaurantsAll)
+ * and the Hibernate L2 regions behind them are populated.
+ */
+@Component
+public class CacheWarmer implements ApplicationRunner {
+
+    private static final Logger log = LoggerFactory.getLogger(CacheWarmer.class);
+
+    @Autowired
+    private RestaurantRepository restaurantRepository;
+
+    @Autowired
+    private RestaurantService restaurantService;
+
+    @Autowired
+    private ReviewService reviewService;
+
+    @Value("${feasto.cache.warmup.enabled:true}")
+    private boolean enabled;
+
+    @Value("${feasto.cache.warmup.threads:4}")
+    private int threads;
+
+    // Highest-rated active restaurants to warm; the long tail loads on demand
+    @Value("${feasto.cache.warmup.maxRestaurants:500}")
+    private int maxRestaurants;
+
+    @Value("${feasto.cache.warmup.timeoutSeconds:60}")
+    private long timeoutSeconds;
+
+    @Override
+    public void run(ApplicationArguments args) throws InterruptedException {
+        if (!enabled)
+            return;
+        long start = System.currentTimeMillis();
+        List<Long> restaurantIds = maxRestaurants > 0
+                ? restaurantRepository.findTopRatedActiveIds(PageRequest.of(0, maxRestaurants))
+                : List.of();
+
+        AtomicInteger failures = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, threads));
+        pool.execute(() -> warm(failures, restaurantService::getAllRestaurants));
+        for (Long id : restaurantIds) {
+            pool.execute(() -> warm(failures, () -> {
+                restaurantService.getRestaurantById(id);
+                restaurantService.getMenuItemsByRestaurantId(id);
+                reviewService.getReviewsByRestaurantId(id);
+            }));
+        }
+        pool.shutdown();
+        if (!pool.awaitTermination(timeoutSeconds, TimeUnit.SECONDS)) {
+            pool.shutdownNow();
+            log.warn("Cache warm-up timed out after {}s; remaining entries load on demand", timeoutSeconds);
+        }
+        log.info("Cache warm-up: {} restaurants in {} ms ({} failed)", restaurantIds.size(),
+                System.currentTimeMillis() - start, failures.get());
+    }
+
+    // A failed warm-up load is only logged; the entry loads on first use instead
+    private void warm(AtomicInteger failures, Runnable load) {
+        try {
+            load.run();
+        } catch (RuntimeException ex) {
+            failures.incrementAndGet();
+            log.debug("Cache warm-up load failed: {}", ex.toString());
+        }
+    }
+}
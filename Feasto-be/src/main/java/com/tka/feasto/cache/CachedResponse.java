@@ -0,0 +1,28 @@
+package com.tka.feasto.cache;
+
+import java.io.Serializable;
+
+/**
+ * A response body serialized once: the JSON bytes and, for bodies large
+ * enough to be worth it, the same bytes gzipped ({@code null} otherwise).
+ */
+public class CachedResponse implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final byte[] json;
+    private final byte[] gzip;
+
+    public CachedResponse(byte[] json, byte[] gzip) {
+        this.json = json;
+        this.gzip = gzip;
+    }
+
+    public byte[] getJson() {
+        return json;
+    }
+
+    public byte[] getGzip() {
+        return gzip;
+    }
+}
@@ -0,0 +1,82 @@
+package com.tka.feasto.cache;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+
+import com.tka.feasto.util.ETags;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Per-restaurant catalog versions behind the restaurant, menu and reviews
+ * ETags.
+ *
+ * A restaurant's version for a region is bumped whenever that region
+ * (restaurantById, menuItemsByRestaurant, reviewsByRestaurant) evicts its
+ * entry, loads it on a miss, or a refresh-ahead reload brings back a
+ * different value, i.e. on menu add/update/delete, review submission and
+ * out-of-band DB changes. A refresh that finds the same data keeps the
+ * version, so ETags stay valid. The bump lands after the eviction, so a
+ * request that reads the new version can never be answered from the old
+ * cached value. Clearing a region bumps its region-wide generation instead.
+ *
+ * A version only vouches for a cached value, so no tag is issued while the
+ * entry is absent (e.g. dropped by its TTL): that request loads, which bumps
+ * the version, and the next one gets a tag for what was actually loaded.
+ */
+@Component
+public class CatalogVersions {
+
+    public static final String RESTAURANT = "restaurantById";
+    public static final String MENU = "menuItemsByRestaurant";
+    public static final String REVIEWS = "reviewsByRestaurant";
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    // region:restaurantId -> version; bounded by restaurants x 3
+    private final ConcurrentHashMap<String, AtomicLong> versions = new ConcurrentHashMap<>();
+
+    // region -> clear count
+    private final ConcurrentHashMap<String, AtomicLong> generations = new ConcurrentHashMap<>();
+
+    // regions whose invalidations we hear about; others get no ETag
+    private final ConcurrentHashMap<String, Cache> tracked = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void registerInvalidation() {
+        for (String region : new String[] { RESTAURANT, MENU, REVIEWS }) {
+            Cache cache = cacheManager.getCache(region);
+            if (cache instanceof CoalescingCache) {
+                ((CoalescingCache) cache).addInvalidationListener(key -> bump(region, key));
+                tracked.put(region, cache);
+            }
+        }
+    }
+
+    // null when the region's changes can't be observed (caching disabled) or
+    // the entry is not cached right now
+    public String etag(String region, Long restaurantId) {
+        Cache cache = tracked.get(region);
+        if (cache == null || cache.get(restaurantId) == null)
+            return null;
+        return ETags.strong(region, restaurantId, counter(generations, region), counter(versions, region + ":" + restaurantId));
+    }
+
+    private void bump(String region, Object key) {
+        if (key == null)
+            generations.computeIfAbsent(region, r -> new AtomicLong()).incrementAndGet();
+        else
+            versions.computeIfAbsent(region + ":" + key, k -> new AtomicLong()).incrementAndGet();
+    }
+
+    private static long counter(ConcurrentHashMap<String, AtomicLong> counters, String key) {
+        AtomicLong counter = counters.get(key);
+        return counter != null ? counter.get() : 0L;
+    }
+}
@@ -0,0 +1,317 @@
+package com.tka.feasto.cache;
+
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Single-flight wrapper around a Spring {@link Cache}.
+ *
+ * On a miss in {@link #get(Object, Callable)} (used by {@code @Cacheable(sync =
+ * true)} and programmatic callers) only the first caller runs the loader; every
+ * concurrent caller for the same key waits for that result instead of hitting
+ * the database itself. An evict/clear that lands while a load is in flight
+ * drops that load's result rather than caching a value read before the write.
+ *
+ * Regions with a {@link CachePolicyProperties.Policy} store values as
+ * {@link CacheEntry} and serve them stale-while-revalidate: once an entry is
+ * older than refresh-after, a read returns it immediately and reloads it on
+ * the refresh executor. If that reload fails the stale value is kept
+ * (stale-if-error) until the region's ehcache.xml TTL drops it.
+ *
+ * Loads are counted per region as {@code feasto.cache.loads{cache=...,
+ * result=loaded|coalesced|refreshed|refresh_failed}} and timed as
+ * {@code feasto.cache.load{cache=...}}.
+ *
+ * Invalidation listeners hear about every key whose value is replaced or
+ * evicted ({@code null} for clear), so caches derived from this region can be
+ * dropped on the same events. That includes a failed refresh that evicts, and
+ * every miss load: the slot may be empty because the TTL dropped a value we
+ * can no longer compare against. Only a background refresh that reloads an
+ * equal value stays silent.
+ */
+public class CoalescingCache implements Cache {
+
+    private static final Logger log = LoggerFactory.getLogger(CoalescingCache.class);
+
+    private final Cache delegate;
+    private final CachePolicyProperties.Policy policy;
+    private final Executor refreshExecutor;
+
+    private final ConcurrentHashMap<Object, CompletableFuture<Object>> inFlight = new ConcurrentHashMap<>();
+    private final List<Consumer<Object>> invalidationListeners = new CopyOnWriteArrayList<>();
+
+    private final LongAdder loaded = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder refreshed = new LongAdder();
+    private final LongAdder refreshFailed = new LongAdder();
+    private final Timer loadTimer;
+
+    public CoalescingCache(Cache delegate, CachePolicyProperties.Policy policy, Executor refreshExecutor,
+            MeterRegistry meterRegistry) {
+        this.delegate = delegate;
+        this.policy = policy;
+        this.refreshExecutor = refreshExecutor;
+        this.loadTimer = meterRegistry != null
+                ? Timer.builder("feasto.cache.load").tag("cache", delegate.getName())
+                        .description("Time spent running cache loaders").register(meterRegistry)
+                : null;
+        if (meterRegistry != null) {
+            registerCounter(meterRegistry, loaded, "loaded", "Cache misses that ran the loader");
+            registerCounter(meterRegistry, coalesced, "coalesced",
+                    "Cache misses served by another caller's in-flight load");
+            if (policy != null) {
+                registerCounter(meterRegistry, refreshed, "refreshed", "Stale entries reloaded in the background");
+                registerCounter(meterRegistry, refreshFailed, "refresh_failed",
+                        "Background reloads that failed");
+            }
+        }
+    }
+
+    private void registerCounter(MeterRegistry meterRegistry, LongAdder adder, String result, String description) {
+        FunctionCounter.builder("feasto.cache.loads", adder, LongAdder::sum)
+                .tag("cache", delegate.getName()).tag("result", result)
+                .description(description)
+                .register(meterRegistry);
+    }
+
+    // Called with the key after a put/evict in this region, or null after a clear
+    public void addInvalidationListener(Consumer<Object> listener) {
+        invalidationListeners.add(listener);
+    }
+
+    private void invalidated(Object key) {
+        for (Consumer<Object> listener : invalidationListeners) {
+            try {
+                listener.accept(key);
+            } catch (RuntimeException ex) {
+                log.warn("Invalidation listener for {}[{}] failed: {}", getName(), key, ex.toString());
+            }
+        }
+    }
+
+    public Cache getDelegate() {
+        return delegate;
+    }
+
+    public long getLoadCount() {
+        return loaded.sum();
+    }
+
+    public long getCoalescedCount() {
+        return coalesced.sum();
+    }
+
+    @Override
+    public String getName() {
+        return delegate.getName();
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return delegate.getNativeCache();
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        return unwrap(delegate.get(key));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        ValueWrapper wrapper = get(key);
+        Object value = wrapper != null ? wrapper.get() : null;
+        if (value != null && type != null && !type.isInstance(value)) {
+            throw new IllegalStateException(
+                    "Cached value is not of required type [" + type.getName() + "]: " + value);
+        }
+        return (T) value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        ValueWrapper cached = delegate.get(key);
+        if (cached != null) {
+            if (cached.get() instanceof CacheEntry) {
+                CacheEntry entry = (CacheEntry) cached.get();
+                if (isStale(entry))
+                    refreshInBackground(key, valueLoader, entry.getValue());
+                return (T) entry.getValue();
+            }
+            return (T) cached.get();
+        }
+
+        CompletableFuture<Object> mine = new CompletableFuture<>();
+        CompletableFuture<Object> running = inFlight.putIfAbsent(key, mine);
+        if (running != null) {
+            coalesced.increment();
+            return (T) await(key, running, valueLoader);
+        }
+        try {
+            // another loader may have finished between our miss and putIfAbsent
+            cached = unwrap(delegate.get(key));
+            Object value;
+            if (cached != null) {
+                value = cached.get();
+            } else {
+                value = load(valueLoader);
+                putIfStillLoading(key, mine, value, true);
+            }
+            mine.complete(value);
+            return (T) value;
+        } catch (Throwable ex) {
+            mine.completeExceptionally(ex);
+            throw new ValueRetrievalException(key, valueLoader, ex);
+        } finally {
+            inFlight.remove(key, mine);
+        }
+    }
+
+    private Object load(Callable<?> valueLoader) throws Exception {
+        long start = System.nanoTime();
+        try {
+            return valueLoader.call();
+        } finally {
+            loaded.increment();
+            if (loadTimer != null)
+                loadTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    private boolean isStale(CacheEntry entry) {
+        return policy != null
+                && System.currentTimeMillis() - entry.getLoadedAtMillis() >= policy.getRefreshAfter().toMillis();
+    }
+
+    // Reload a stale entry off the request thread; at most one reload per key
+    private void refreshInBackground(Object key, Callable<?> valueLoader, Object previous) {
+        CompletableFuture<Object> mine = new CompletableFuture<>();
+        if (inFlight.putIfAbsent(key, mine) != null)
+            return; // already being reloaded
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    Object value = load(valueLoader);
+                    refreshed.increment();
+                    // an unchanged reload only renews the entry's age
+                    putIfStillLoading(key, mine, value, !Objects.equals(previous, value));
+                    mine.complete(value);
+                } catch (Throwable ex) {
+                    refreshFailed.increment();
+                    mine.completeExceptionally(ex);
+                    if (!policy.isStaleIfError()) {
+                        delegate.evict(key);
+                        invalidated(key);
+                    }
+                    log.warn("Background reload of {}[{}] failed, {}: {}", getName(), key,
+                            policy.isStaleIfError() ? "serving stale value" : "entry evicted", ex.toString());
+                } finally {
+                    inFlight.remove(key, mine);
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            inFlight.remove(key, mine); // the next stale read tries again
+        }
+    }
+
+    // Put under the in-flight entry's lock; skipped if an evict/clear removed
+    // our entry mid-load. Listeners are told unless the caller knows the value
+    // is unchanged (a refresh that reloaded an equal value).
+    private void putIfStillLoading(Object key, CompletableFuture<Object> mine, Object value, boolean replacing) {
+        boolean[] stored = new boolean[1];
+        inFlight.computeIfPresent(key, (k, current) -> {
+            if (current == mine) {
+                delegate.put(k, wrap(value));
+                stored[0] = true;
+            }
+            return current;
+        });
+        if (stored[0] && replacing)
+            invalidated(key);
+    }
+
+    private Object await(Object key, CompletableFuture<Object> running, Callable<?> valueLoader) {
+        try {
+            return running.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new ValueRetrievalException(key, valueLoader, ex);
+        } catch (ExecutionException ex) {
+            throw new ValueRetrievalException(key, valueLoader, ex.getCause());
+        }
+    }
+
+    private Object wrap(Object value) {
+        return policy != null ? new CacheEntry(value, System.currentTimeMillis()) : value;
+    }
+
+    private ValueWrapper unwrap(ValueWrapper wrapper) {
+        if (wrapper != null && wrapper.get() instanceof CacheEntry)
+            return new SimpleValueWrapper(((CacheEntry) wrapper.get()).getValue());
+        return wrapper;
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        delegate.put(key, wrap(value));
+        invalidated(key);
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        ValueWrapper existing = delegate.putIfAbsent(key, wrap(value));
+        if (existing == null)
+            invalidated(key);
+        return unwrap(existing);
+    }
+
+    @Override
+    public void evict(Object key) {
+        inFlight.remove(key);
+        delegate.evict(key);
+        invalidated(key);
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        inFlight.remove(key);
+        boolean present = delegate.evictIfPresent(key);
+        invalidated(key);
+        return present;
+    }
+
+    @Override
+    public void clear() {
+        inFlight.clear();
+        delegate.clear();
+        invalidated(null);
+    }
+
+    @Override
+    public boolean invalidate() {
+        inFlight.clear();
+        boolean present = delegate.invalidate();
+        invalidated(null);
+        return present;
+    }
+}
@@ -0,0 +1,73 @@
+package com.tka.feasto.cache;
+
+import java.util.Collection;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Decorates the Ehcache-backed CacheManager so every region it hands out,
+ * to {@code @Cacheable} and programmatic callers alike, is a
+ * {@link CoalescingCache} carrying that alias's refresh policy.
+ */
+public class CoalescingCacheManager implements CacheManager, DisposableBean {
+
+    private final CacheManager delegate;
+    private final ObjectProvider<CachePolicyProperties> policies;
+    private final ObjectProvider<MeterRegistry> meterRegistry;
+
+    private final ConcurrentHashMap<String, CoalescingCache> caches = new ConcurrentHashMap<>();
+
+    // Background reloads for refresh-ahead regions; bounded by single-flight per key
+    private final ExecutorService refreshExecutor;
+
+    public CoalescingCacheManager(CacheManager delegate, ObjectProvider<CachePolicyProperties> policies,
+            ObjectProvider<MeterRegistry> meterRegistry) {
+        this.delegate = delegate;
+        this.policies = policies;
+        this.meterRegistry = meterRegistry;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.refreshExecutor = Executors.newFixedThreadPool(2, r -> {
+            Thread t = new Thread(r, "cache-refresh-" + threadCount.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    public CacheManager getDelegate() {
+        return delegate;
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        CoalescingCache cache = caches.get(name);
+        if (cache != null)
+            return cache;
+        Cache target = delegate.getCache(name);
+        if (target == null)
+            return null;
+        return caches.computeIfAbsent(name, n -> {
+            CachePolicyProperties properties = policies.getIfAvailable();
+            return new CoalescingCache(target, properties != null ? properties.policyFor(n) : null,
+                    refreshExecutor, meterRegistry.getIfAvailable());
+        });
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return delegate.getCacheNames();
+    }
+
+    @Override
+    public void destroy() {
+        refreshExecutor.shutdownNow();
+    }
+}
@@ -0,0 +1,24 @@
+package com.tka.feasto.cache;
+
+import org.springframework.boot.actuate.metrics.cache.CacheMeterBinderProvider;
+
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.JCacheMetrics;
+
+/**
+ * Lets Spring Boot's cache metrics see through {@link CoalescingCache}: binds
+ * the JSR-107 statistics of the wrapped Ehcache region (cache.gets, cache.puts,
+ * cache.evictions, cache.removals) with the usual cache/cacheManager tags.
+ */
+public class CoalescingCacheMeterBinderProvider implements CacheMeterBinderProvider<CoalescingCache> {
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public MeterBinder getMeterBinder(CoalescingCache cache, Iterable<Tag> tags) {
+        Object nativeCache = cache.getNativeCache();
+        if (nativeCache instanceof javax.cache.Cache)
+            return new JCacheMetrics<>((javax.cache.Cache<Object, Object>) nativeCache, tags);
+        return null;
+    }
+}
@@ -0,0 +1,179 @@
+package com.tka.feasto.cache;
+
+import java.util.EnumSet;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.ehcache.event.EventFiring;
+import org.ehcache.event.EventOrdering;
+import org.ehcache.event.EventType;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+
+import com.tka.feasto.index.NearbyCandidates;
+import com.tka.feasto.repository.RestaurantRepository;
+import com.tka.feasto.util.DistanceUtil;
+import com.tka.feasto.util.GeoHash;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Geohash-cell cache for nearby search candidates.
+ *
+ * Search origins are snapped to a geohash cell and radii are rounded up to a
+ * fixed bucket; the cache holds every restaurant within (bucket radius + half
+ * the cell diagonal) of the cell center, keyed by {@code cell:bucket}. That
+ * superset covers any origin inside the cell and any radius up to the bucket,
+ * so users a few metres apart share one entry and each request re-ranks the
+ * candidates for its own exact position and radius.
+ *
+ * Invalidation is cell-scoped: a restaurant change evicts only the cached
+ * cells whose search area can contain that restaurant. The keys needed for
+ * that are tracked per ~156 km area and dropped again when Ehcache expires,
+ * evicts or removes the entry, so the tracking never outgrows the region.
+ */
+@Component
+public class NearbySearchCache {
+
+    public static final String CACHE_NAME = "nearbyRestaurantsCache";
+
+    private static final double DEFAULT_RADIUS_KM = 50.0;
+
+    // Radii are rounded up to one of these; anything larger is not cached
+    private static final double[] RADIUS_BUCKETS_KM = { 1, 2, 3, 5, 10, 15, 20, 30, 50 };
+
+    // geohash length 3 ~= 156 km x 156 km areas group the tracked keys
+    private static final int AREA_PRECISION = 3;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private javax.cache.CacheManager jCacheManager;
+
+    @Autowired
+    private RestaurantRepository restaurantRepository;
+
+    // geohash length 6 ~= 1.2 km x 0.6 km cells
+    @Value("${feasto.nearby.cache.geohashPrecision:6}")
+    private int precision;
+
+    // Keys currently in the region, by area; lets eviction find cells covering a point
+    private final Map<String, Set<String>> keysByArea = new ConcurrentHashMap<>();
+
+    // Forget keys once Ehcache drops them (TTL, capacity or explicit evict).
+    // Synchronous, so an event can't land after the key was cached again.
+    @PostConstruct
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    void trackRegionEvents() {
+        javax.cache.Cache<Object, Object> region = jCacheManager.getCache(CACHE_NAME);
+        if (region == null)
+            return;
+        org.ehcache.Cache ehcache = region.unwrap(org.ehcache.Cache.class);
+        ehcache.getRuntimeConfiguration().registerCacheEventListener(
+                (org.ehcache.event.CacheEventListener) event -> untrack(String.valueOf(event.getKey())),
+                EventOrdering.UNORDERED, EventFiring.SYNCHRONOUS,
+                EnumSet.of(EventType.EXPIRED, EventType.EVICTED, EventType.REMOVED));
+    }
+
+    public NearbyCandidates candidates(double lat, double lon, double radiusKm) {
+        double radius = radiusKm > 0 ? radiusKm : DEFAULT_RADIUS_KM;
+        String cell = GeoHash.encode(lat, lon, precision);
+        double bucket = radiusBucket(radius);
+        Cache cache = cacheManager.getCache(CACHE_NAME);
+        if (cache == null || bucket < 0)
+            return load(cell, radius);
+        String key = cell + ":" + bucket;
+        Set<String> keys = keysByArea.computeIfAbsent(cell.substring(0, AREA_PRECISION),
+                a -> ConcurrentHashMap.newKeySet());
+        // tracked before the load so an eviction racing it still finds the key,
+        // and again after in case the get expired the previous entry
+        keys.add(key);
+        NearbyCandidates candidates = cache.get(key, () -> load(cell, bucket));
+        keys.add(key);
+        return candidates;
+    }
+
+    // Evict the cached cells whose search area includes (lat, lon)
+    public void evictCellsCovering(Double lat, Double lon) {
+        if (lat == null || lon == null)
+            return; // restaurants without coordinates never appear in nearby results
+        Cache cache = cacheManager.getCache(CACHE_NAME);
+        if (cache == null)
+            return;
+        // largest bucket plus a cell diagonal of slack for cells at other latitudes
+        double reachKm = RADIUS_BUCKETS_KM[RADIUS_BUCKETS_KM.length - 1]
+                + 2 * GeoHash.halfDiagonalKm(GeoHash.encode(lat, lon, precision));
+        for (String area : areasWithin(lat, lon, reachKm)) {
+            Set<String> keys = keysByArea.get(area);
+            if (keys == null)
+                continue;
+            for (String key : keys) {
+                int sep = key.indexOf(':');
+                String cell = key.substring(0, sep);
+                double radius = Double.parseDouble(key.substring(sep + 1));
+                double[] center = GeoHash.center(cell);
+                if (DistanceUtil.haversine(center[0], center[1], lat, lon) <= radius + GeoHash.halfDiagonalKm(cell)) {
+                    cache.evict(key);
+                    keys.remove(key);
+                }
+            }
+        }
+    }
+
+    // Smallest bucket >= radius, or -1 when the radius is beyond the largest one
+    private static double radiusBucket(double radiusKm) {
+        for (double bucket : RADIUS_BUCKETS_KM) {
+            if (radiusKm <= bucket)
+                return bucket;
+        }
+        return -1;
+    }
+
+    private void untrack(String key) {
+        Set<String> keys = keysByArea.get(key.substring(0, AREA_PRECISION));
+        if (keys != null)
+            keys.remove(key);
+    }
+
+    // Area cells intersecting the box of reachKm around (lat, lon); sampled at
+    // a step below the area cell size (1.4 deg) so none is skipped
+    private static Set<String> areasWithin(double lat, double lon, double reachKm) {
+        double dLat = reachKm / 111.0;
+        double minLat = Math.max(-90, lat - dLat);
+        double maxLat = Math.min(90, lat + dLat);
+        // widest in longitude at the box edge farthest from the equator
+        double cos = Math.cos(Math.toRadians(Math.max(Math.abs(minLat), Math.abs(maxLat))));
+        double dLon = cos < 1e-6 ? 180 : Math.min(180, reachKm / (111.320 * cos));
+        Set<String> areas = new LinkedHashSet<>();
+        for (double la = minLat;; la = Math.min(maxLat, la + 1.0)) {
+            for (double lo = lon - dLon;; lo = Math.min(lon + dLon, lo + 1.0)) {
+                areas.add(GeoHash.encode(la, wrapLon(lo), AREA_PRECISION));
+                if (lo >= lon + dLon)
+                    break;
+            }
+            if (la >= maxLat)
+                break;
+        }
+        return areas;
+    }
+
+    private static double wrapLon(double lon) {
+        if (lon >= 180)
+            return lon - 360;
+        if (lon < -180)
+            return lon + 360;
+        return lon;
+    }
+
+    private NearbyCandidates load(String cell, double radiusKm) {
+        double[] center = GeoHash.center(cell);
+        return restaurantRepository.findNearbyCandidates(center[0], center[1],
+                radiusKm + GeoHash.halfDiagonalKm(cell));
+    }
+}
@@ -0,0 +1,143 @@
+package com.tka.feasto.cache;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.tka.feasto.util.ETags;
+
+/**
+ * Key-level invalidation for the order caches.
+ *
+ * ordersByUser, ordersByDeliveryPartner and orderById have one key per owner and
+ * are evicted by key. ordersByRestaurant holds many paged/status variants per
+ * restaurant, so its keys embed a per-restaurant generation (see
+ * {@link #restaurantOrdersKey(Long, String)}); bumping the generation makes
+ * every variant of that restaurant unreachable at once, and the keys handed
+ * out under the previous generation are evicted right away instead of
+ * lingering until TTL. Keys also carry this node's start time, so entries
+ * from an earlier run (persistent tier) can never be read back once the
+ * counters restart at zero.
+ *
+ * Invalidation runs after commit so a concurrent read can't re-cache rows the
+ * writing transaction hasn't committed yet.
+ *
+ * The same events drive the order ETags: the restaurant generation, and
+ * striped per-order and per-user counters bumped after the evictions. Two ids
+ * sharing a stripe only cost each other a spurious 200, never a wrong 304.
+ */
+@Component
+public class OrderCacheInvalidator {
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    private static final String RESTAURANT_ORDERS = "ordersByRestaurant";
+
+    private final String nodeEpoch = Long.toString(System.currentTimeMillis(), 36);
+
+    private final ConcurrentHashMap<Long, AtomicLong> restaurantGenerations = new ConcurrentHashMap<>();
+    // ordersByRestaurant keys handed out per restaurant since its last bump
+    private final ConcurrentHashMap<Long, Set<String>> restaurantOrderKeys = new ConcurrentHashMap<>();
+
+    private static final int STRIPES = 4096;
+    private final AtomicLongArray orderVersions = new AtomicLongArray(STRIPES);
+    private final AtomicLongArray userVersions = new AtomicLongArray(STRIPES);
+
+    // Used from @Cacheable keys: "@orderCacheInvalidator.restaurantOrdersKey(#restaurantId, '...')";
+    // "<restaurantId>@<epoch>.<generation>[-<variant>]"
+    public String restaurantOrdersKey(Long restaurantId, String variant) {
+        String key = restaurantId + "@" + nodeEpoch + "." + restaurantGeneration(restaurantId)
+                + (variant == null || variant.isEmpty() ? "" : "-" + variant);
+        if (restaurantId != null)
+            restaurantOrderKeys.computeIfAbsent(restaurantId, id -> ConcurrentHashMap.newKeySet()).add(key);
+        return key;
+    }
+
+    public long restaurantGeneration(Long restaurantId) {
+        AtomicLong generation = restaurantId != null ? restaurantGenerations.get(restaurantId) : null;
+        return generation != null ? generation.get() : 0L;
+    }
+
+    public String restaurantOrdersETag(Long restaurantId) {
+        return ETags.strong("ro", restaurantId, restaurantGeneration(restaurantId));
+    }
+
+    public String orderETag(Long orderId) {
+        return ETags.strong("o", orderId, orderVersions.get(stripe(orderId)));
+    }
+
+    public String userOrdersETag(Long userId) {
+        return ETags.strong("uo", userId, userVersions.get(stripe(userId)));
+    }
+
+    private static int stripe(Long id) {
+        return id != null ? (int) ((id ^ (id >>> 32)) & (STRIPES - 1)) : 0;
+    }
+
+    // Evict the cached views one order appears in; null ids are skipped
+    public void evictAfterCommit(Long orderId, Long userId, Long restaurantId, Long... deliveryPartnerIds) {
+        Runnable eviction = () -> evict(orderId, userId, restaurantId, deliveryPartnerIds);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    eviction.run();
+                }
+            });
+        } else {
+            eviction.run();
+        }
+    }
+
+    private void evict(Long orderId, Long userId, Long restaurantId, Long[] deliveryPartnerIds) {
+        if (restaurantId != null) {
+            restaurantGenerations.computeIfAbsent(restaurantId, id -> new AtomicLong()).incrementAndGet();
+            evictRestaurantOrders(restaurantId);
+        }
+        evictKey("orderById", orderId);
+        evictKey("ordersByUser", userId);
+        if (deliveryPartnerIds != null) {
+            for (Long deliveryPartnerId : deliveryPartnerIds) {
+                evictKey("ordersByDeliveryPartner", deliveryPartnerId);
+            }
+        }
+        // after the evictions: a reader that sees the new version misses the cache
+        if (orderId != null)
+            orderVersions.incrementAndGet(stripe(orderId));
+        if (userId != null)
+            userVersions.incrementAndGet(stripe(userId));
+    }
+
+    // Drop the previous generation's variants; new reads already use the bumped key
+    private void evictRestaurantOrders(Long restaurantId) {
+        Set<String> keys = restaurantOrderKeys.get(restaurantId);
+        if (keys == null)
+            return;
+        Cache cache = cacheManager.getCache(RESTAURANT_ORDERS);
+        String current = restaurantId + "@" + nodeEpoch + "." + restaurantGeneration(restaurantId);
+        for (String key : keys) {
+            if (key.startsWith(current) && (key.length() == current.length() || key.charAt(current.length()) == '-'))
+                continue; // handed out after the bump
+            keys.remove(key);
+            if (cache != null)
+                cache.evict(key);
+        }
+    }
+
+    private void evictKey(String cacheName, Long key) {
+        if (key == null)
+            return;
+        Cache cache = cacheManager.getCache(cacheName);
+        if (cache != null)
+            cache.evict(key);
+    }
+}
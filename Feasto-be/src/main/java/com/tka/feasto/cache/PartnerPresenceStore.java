@@ -0,0 +1,278 @@
+package com.tka.feasto.cache;
+
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.tka.feasto.entity.DeliveryPartner;
+import com.tka.feasto.entity.Location;
+import com.tka.feasto.exception.ResourceNotFoundException;
+import com.tka.feasto.index.DeliveryPartnerIndex;
+import com.tka.feasto.repository.DeliveryPartnerRepository;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * In-memory presence (availability + live location) of delivery partners,
+ * the authority for that volatile state while the app runs.
+ *
+ * Availability toggles, assignments and location heartbeats only touch the
+ * concurrent map and the nearest-partner index. A partner who stays available
+ * without a heartbeat for feasto.presence.ttlMs is marked offline, and an
+ * offline partner silent that long is dropped once written, so the map only
+ * holds partners seen recently. Changed partners are flagged dirty and written
+ * behind every feasto.presence.flushMs as one JDBC batch of column-only
+ * UPDATEs, however many changes they had in between. Plain JDBC keeps
+ * Hibernate from invalidating the whole DeliveryPartner L2 region as a bulk
+ * JPQL UPDATE would; only the written partners' entries are evicted.
+ *
+ * The profile caches are only touched when availability actually flips:
+ * deliveryPartnerById for that partner and the deliveryPartnersAll list.
+ */
+@Component
+public class PartnerPresenceStore {
+
+    private static final Logger log = LoggerFactory.getLogger(PartnerPresenceStore.class);
+
+    // A null location keeps the row's last known one
+    private static final String UPDATE_PRESENCE_SQL = "UPDATE delivery_partners SET available = ?,"
+            + " latitude = COALESCE(?, latitude), longitude = COALESCE(?, longitude)"
+            + " WHERE delivery_partner_id = ?";
+    private static final int[] UPDATE_PRESENCE_TYPES = { Types.BOOLEAN, Types.DOUBLE, Types.DOUBLE, Types.BIGINT };
+
+    @Autowired
+    private DeliveryPartnerRepository deliveryPartnerRepository;
+
+    @Autowired
+    private DeliveryPartnerIndex partnerIndex;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Value("${feasto.presence.ttlMs:90000}")
+    private long ttlMs;
+
+    private final Map<Long, Presence> presence = new ConcurrentHashMap<>();
+    private final Set<Long> dirty = ConcurrentHashMap.newKeySet();
+
+    // Seed from the rows marked available; each gets a full TTL to check in
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        List<DeliveryPartner> available = deliveryPartnerRepository.findByAvailableTrue();
+        long now = System.currentTimeMillis();
+        for (DeliveryPartner p : available) {
+            Location loc = p.getCurrentLocation();
+            presence.putIfAbsent(p.getDeliveryPartnerId(), new Presence(true,
+                    loc != null ? loc.getLatitude() : null, loc != null ? loc.getLongitude() : null,
+                    rating(p), now));
+        }
+        partnerIndex.rebuild(available);
+        log.info("Partner presence loaded: {} available partners", available.size());
+    }
+
+    /**
+     * Explicit availability change (toggle, assignment, delivery done). A null
+     * location keeps the last known one. Resets the heartbeat clock.
+     */
+    public void setAvailability(DeliveryPartner partner, boolean available, Location location) {
+        Long id = partner.getDeliveryPartnerId();
+        boolean[] flipped = new boolean[1];
+        presence.compute(id, (k, current) -> {
+            Double lat = location != null && location.getLatitude() != null ? location.getLatitude()
+                    : current != null ? current.latitude : partnerLat(partner);
+            Double lon = location != null && location.getLongitude() != null ? location.getLongitude()
+                    : current != null ? current.longitude : partnerLon(partner);
+            flipped[0] = current == null || current.available != available;
+            Presence next = new Presence(available, lat, lon, rating(partner), System.currentTimeMillis());
+            index(id, next);
+            return next;
+        });
+        dirty.add(id);
+        if (flipped[0])
+            evictProfile(id);
+    }
+
+    /**
+     * Location heartbeat from the partner app; keeps an available partner
+     * online. A partner not in the map is looked up first and starts from its
+     * row; unknown ids are rejected rather than given an entry.
+     */
+    public void heartbeat(Long id, double latitude, double longitude) {
+        if (id == null)
+            return;
+        Presence seed = null;
+        if (!presence.containsKey(id)) {
+            DeliveryPartner partner = deliveryPartnerRepository.findById(id)
+                    .orElseThrow(() -> new ResourceNotFoundException("Delivery Partner not found with id: " + id));
+            seed = new Presence(Boolean.TRUE.equals(partner.getAvailable()), null, null, rating(partner), 0L);
+        }
+        Presence fallback = seed;
+        presence.compute(id, (k, current) -> {
+            Presence base = current != null ? current : fallback;
+            Presence next = new Presence(base.available, latitude, longitude, base.rating,
+                    System.currentTimeMillis());
+            index(id, next);
+            return next;
+        });
+        dirty.add(id);
+    }
+
+    public boolean isAvailable(Long id) {
+        Presence p = presence.get(id);
+        return p != null && p.available;
+    }
+
+    // Current presence of a partner, or null if it has not been seen
+    public Presence get(Long id) {
+        return presence.get(id);
+    }
+
+    public List<Long> availablePartnerIds() {
+        List<Long> ids = new ArrayList<>();
+        presence.forEach((id, p) -> {
+            if (p.available)
+                ids.add(id);
+        });
+        Collections.sort(ids);
+        return ids;
+    }
+
+    // Mark partners offline once their heartbeat is older than the TTL, and
+    // drop offline partners that old whose state has been written
+    @Scheduled(fixedDelayString = "${feasto.presence.sweepMs:15000}")
+    public void expireSilent() {
+        long cutoff = System.currentTimeMillis() - ttlMs;
+        int expired = 0;
+        for (Long id : presence.keySet()) {
+            boolean[] changed = new boolean[1];
+            presence.computeIfPresent(id, (k, p) -> {
+                if (p.lastSeen >= cutoff)
+                    return p;
+                if (!p.available)
+                    return dirty.contains(id) ? p : null;
+                changed[0] = true;
+                partnerIndex.remove(id);
+                return new Presence(false, p.latitude, p.longitude, p.rating, p.lastSeen);
+            });
+            if (changed[0]) {
+                dirty.add(id);
+                evictProfile(id);
+                expired++;
+            }
+        }
+        if (expired > 0)
+            log.info("Marked {} silent delivery partners offline", expired);
+    }
+
+    // Write-behind: the partners changed since the last flush, in one batch
+    @Scheduled(fixedDelayString = "${feasto.presence.flushMs:5000}")
+    @PreDestroy
+    public void flush() {
+        List<Long> ids = new ArrayList<>();
+        List<Object[]> rows = new ArrayList<>();
+        for (Long id : new ArrayList<>(dirty)) {
+            dirty.remove(id);
+            Presence p = presence.get(id);
+            if (p == null)
+                continue;
+            ids.add(id);
+            rows.add(new Object[] { p.available, p.latitude, p.longitude, id });
+        }
+        if (rows.isEmpty())
+            return;
+        try {
+            jdbcTemplate.batchUpdate(UPDATE_PRESENCE_SQL, rows, UPDATE_PRESENCE_TYPES);
+        } catch (RuntimeException ex) {
+            dirty.addAll(ids); // retry on the next flush
+            log.warn("Presence write for {} delivery partners failed: {}", ids.size(), ex.getMessage());
+            return;
+        }
+        jakarta.persistence.Cache secondLevel = entityManagerFactory.getCache();
+        for (Long id : ids)
+            secondLevel.evict(DeliveryPartner.class, id);
+    }
+
+    private void index(Long id, Presence p) {
+        if (p.available && p.latitude != null && p.longitude != null)
+            partnerIndex.track(id, p.latitude, p.longitude, p.rating);
+        else
+            partnerIndex.remove(id);
+    }
+
+    private void evictProfile(Long id) {
+        Cache byId = cacheManager.getCache("deliveryPartnerById");
+        if (byId != null)
+            byId.evict(id);
+        Cache all = cacheManager.getCache("deliveryPartnersAll");
+        if (all != null)
+            all.clear();
+    }
+
+    private static Double partnerLat(DeliveryPartner p) {
+        return p.getCurrentLocation() != null ? p.getCurrentLocation().getLatitude() : null;
+    }
+
+    private static Double partnerLon(DeliveryPartner p) {
+        return p.getCurrentLocation() != null ? p.getCurrentLocation().getLongitude() : null;
+    }
+
+    private static double rating(DeliveryPartner p) {
+        return p.getAverageRating() != null ? p.getAverageRating() : 0.0;
+    }
+
+    /** Immutable presence snapshot of one partner. */
+    public static class Presence {
+        private final boolean available;
+        private final Double latitude;
+        private final Double longitude;
+        private final double rating;
+        private final long lastSeen;
+
+        Presence(boolean available, Double latitude, Double longitude, double rating, long lastSeen) {
+            this.available = available;
+            this.latitude = latitude;
+            this.longitude = longitude;
+            this.rating = rating;
+            this.lastSeen = lastSeen;
+        }
+
+        public boolean isAvailable() {
+            return available;
+        }
+
+        public Double getLatitude() {
+            return latitude;
+        }
+
+        public Double getLongitude() {
+            return longitude;
+        }
+
+        public long getLastSeen() {
+            return lastSeen;
+        }
+    }
+}
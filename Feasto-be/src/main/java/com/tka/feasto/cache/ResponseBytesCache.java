@@ -0,0 +1,144 @@
+package com.tka.feasto.cache;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.function.Supplier;
+import java.util.zip.GZIPOutputStream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tka.feasto.util.ETags;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Pre-serialized JSON for hot catalog reads (restaurant, menu, reviews).
+ *
+ * Bodies are serialized with the application's ObjectMapper once per key and
+ * kept as bytes (plus a gzipped copy when large enough) in the
+ * {@code responseBytes} region, so a hit writes the bytes straight to the
+ * response with no DTO lookup or Jackson work. Each entry is derived from a
+ * source region ({@code restaurantById}, {@code menuItemsByRestaurant},
+ * {@code reviewsByRestaurant}) and dropped whenever that region evicts or
+ * replaces the same key.
+ */
+@Component
+public class ResponseBytesCache {
+
+    public static final String CACHE_NAME = "responseBytes";
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${feasto.cache.response.enabled:true}")
+    private boolean enabled;
+
+    @Value("${feasto.cache.response.gzip:true}")
+    private boolean gzipEnabled;
+
+    // Smaller bodies are not worth a Content-Encoding round trip
+    @Value("${feasto.cache.response.gzipMinBytes:1024}")
+    private int gzipMinBytes;
+
+    @PostConstruct
+    void registerInvalidation() {
+        for (String source : new String[] { "restaurantById", "menuItemsByRestaurant", "reviewsByRestaurant" }) {
+            Cache cache = cacheManager.getCache(source);
+            if (cache instanceof CoalescingCache)
+                ((CoalescingCache) cache).addInvalidationListener(key -> evict(source, key));
+        }
+    }
+
+    /**
+     * JSON response for {@code source[key]}, serializing {@code loader}'s result
+     * on a miss. Gzipped bytes are sent when the client accepts them; the etag,
+     * if given, is suffixed for the gzipped representation (see {@link ETags}).
+     */
+    public ResponseEntity<byte[]> respond(String source, Object key, String acceptEncoding, String etag,
+            Supplier<?> loader) {
+        CachedResponse response = get(source, key, loader);
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.APPLICATION_JSON);
+        headers.add(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (response.getGzip() != null && acceptsGzip(acceptEncoding)) {
+            headers.add(HttpHeaders.CONTENT_ENCODING, "gzip");
+            if (etag != null)
+                headers.setETag(ETags.gzip(etag));
+            return ResponseEntity.ok().headers(headers).body(response.getGzip());
+        }
+        if (etag != null)
+            headers.setETag(etag);
+        return ResponseEntity.ok().headers(headers).body(response.getJson());
+    }
+
+    private CachedResponse get(String source, Object key, Supplier<?> loader) {
+        Cache cache = enabled ? cacheManager.getCache(CACHE_NAME) : null;
+        if (cache == null)
+            return serialize(loader.get());
+        try {
+            return cache.get(cacheKey(source, key), () -> serialize(loader.get()));
+        } catch (Cache.ValueRetrievalException ex) {
+            // surface the loader's own exception (e.g. ResourceNotFoundException -> 404)
+            if (ex.getCause() instanceof RuntimeException)
+                throw (RuntimeException) ex.getCause();
+            throw ex;
+        }
+    }
+
+    private void evict(String source, Object key) {
+        Cache cache = cacheManager.getCache(CACHE_NAME);
+        if (cache == null)
+            return;
+        if (key == null)
+            cache.clear(); // source region cleared; entries are not indexed by source
+        else
+            cache.evict(cacheKey(source, key));
+    }
+
+    private static String cacheKey(String source, Object key) {
+        return source + ":" + key;
+    }
+
+    private CachedResponse serialize(Object body) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(body);
+            return new CachedResponse(json, gzipEnabled && json.length >= gzipMinBytes ? gzip(json) : null);
+        } catch (JsonProcessingException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private static byte[] gzip(byte[] bytes) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(bytes.length / 4 + 64);
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(bytes);
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return out.toByteArray();
+    }
+
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null)
+            return false;
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            if (parts[0].trim().equalsIgnoreCase("gzip"))
+                return parts.length == 1 || !parts[1].trim().replace(" ", "").matches("q=0(\\.0*)?");
+        }
+        return false;
+    }
+}
@@ -0,0 +1,47 @@
+package com.tka.feasto.cache;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+
+import com.tka.feasto.dto.MapTileDTO;
+import com.tka.feasto.index.RestaurantTileIndex;
+import com.tka.feasto.util.TileMath;
+
+/**
+ * Per-tile cache of clustered map tiles, keyed {@code z/x/y}.
+ *
+ * A restaurant lies in exactly one tile per zoom level, so invalidation is
+ * cell-scoped without tracking keys: a change at (lat, lon) evicts the one
+ * tile covering it at each zoom.
+ */
+@Component
+public class RestaurantTileCache {
+
+    public static final String CACHE_NAME = "restaurantTiles";
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private RestaurantTileIndex tileIndex;
+
+    public MapTileDTO tile(int z, int x, int y) {
+        Cache cache = cacheManager.getCache(CACHE_NAME);
+        if (cache == null)
+            return tileIndex.tile(z, x, y);
+        return cache.get(z + "/" + x + "/" + y, () -> tileIndex.tile(z, x, y));
+    }
+
+    // Evict the tile containing (lat, lon) at every zoom level
+    public void evictTilesCovering(Double lat, Double lon) {
+        if (lat == null || lon == null)
+            return;
+        Cache cache = cacheManager.getCache(CACHE_NAME);
+        if (cache == null)
+            return;
+        for (int z = 0; z <= TileMath.MAX_ZOOM; z++)
+            cache.evict(z + "/" + TileMath.tileX(lon, z) + "/" + TileMath.tileY(lat, z));
+    }
+}
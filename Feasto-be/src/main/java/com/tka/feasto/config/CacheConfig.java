@@ -0,0 +1,169 @@
+package com.tka.feasto.config;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import javax.cache.Caching;
+
+import org.ehcache.config.FluentConfigurationBuilder;
+import org.ehcache.config.ResourcePools;
+import org.ehcache.config.ResourceType;
+import org.ehcache.config.builders.ResourcePoolsBuilder;
+import org.ehcache.config.units.EntryUnit;
+import org.ehcache.config.units.MemoryUnit;
+import org.ehcache.impl.config.SizedResourcePoolImpl;
+import org.ehcache.impl.config.persistence.CacheManagerPersistenceConfiguration;
+import org.ehcache.impl.config.serializer.DefaultSerializationProviderConfiguration;
+import org.ehcache.impl.config.store.heap.DefaultSizeOfEngineProviderConfiguration;
+import org.ehcache.jsr107.EhcacheCachingProvider;
+import org.ehcache.xml.XmlConfiguration;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.actuate.metrics.cache.CacheMeterBinderProvider;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.io.Resource;
+
+import com.tka.feasto.cache.CachePolicyProperties;
+import com.tka.feasto.cache.CacheTierProperties;
+import com.tka.feasto.cache.CacheValueSerializer;
+import com.tka.feasto.cache.CoalescingCache;
+import com.tka.feasto.cache.CoalescingCacheManager;
+import com.tka.feasto.cache.CoalescingCacheMeterBinderProvider;
+import com.tka.feasto.cache.NearbySearchCache;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+@Configuration
+@EnableConfigurationProperties({ CachePolicyProperties.class, CacheTierProperties.class })
+public class CacheConfig {
+
+    private static final Logger log = LoggerFactory.getLogger(CacheConfig.class);
+
+    // Spring regions whose keys or invalidation depend on in-memory state that
+    // starts empty on every run (order generations, tracked nearby cells);
+    // entries restored from disk would be unreachable or never evicted
+    private static final Set<String> PROCESS_LOCAL_REGIONS = Set.of("ordersByRestaurant",
+            NearbySearchCache.CACHE_NAME);
+
+    // Limits for byte-sized heap tiers; cached pages with nested DTOs exceed
+    // Ehcache's default walk of 1000 objects
+    private static final long MAX_SIZED_OBJECT_MB = 16;
+    private static final long MAX_SIZED_OBJECT_GRAPH = 100_000;
+
+    // Wrap the CacheManager Spring Boot builds from ehcache.xml so concurrent
+    // misses on the same key share one load and policy regions refresh ahead
+    // (see CoalescingCache)
+    @Bean
+    public static BeanPostProcessor coalescingCacheManagerPostProcessor(
+            ObjectProvider<CachePolicyProperties> policies, ObjectProvider<MeterRegistry> meterRegistry) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof CacheManager && !(bean instanceof CoalescingCacheManager))
+                    return new CoalescingCacheManager((CacheManager) bean, policies, meterRegistry);
+                return bean;
+            }
+        };
+    }
+
+    // Per-region cache.* metrics for the wrapped Spring caches
+    @Bean
+    public CacheMeterBinderProvider<CoalescingCache> coalescingCacheMeterBinderProvider() {
+        return new CoalescingCacheMeterBinderProvider();
+    }
+
+    // Hibernate's L2 regions live in the same JCache manager as the Spring
+    // caches, so the entity aliases in ehcache.xml actually apply to them
+    @Bean
+    public HibernatePropertiesCustomizer secondLevelCacheManagerCustomizer(javax.cache.CacheManager cacheManager) {
+        return properties -> properties.put(ConfigSettings.CACHE_MANAGER, cacheManager);
+    }
+
+    // The JCache manager behind both the Spring caches and Hibernate's L2
+    // regions: ehcache.xml, with per-alias tier sizes from feasto.cache.regions.*
+    // and, when feasto.cache.disk.enabled=true, a persistent local disk tier
+    // under the regions in feasto.cache.disk.regions so a restarted node reloads
+    // them from disk. Replaces the manager Spring Boot would build from
+    // ehcache.xml alone.
+    @Bean(destroyMethod = "close")
+    public javax.cache.CacheManager ehcacheJCacheManager(
+            @Value("${spring.cache.jcache.config:classpath:ehcache.xml}") Resource ehcacheXml,
+            CacheTierProperties tierProperties,
+            @Value("${feasto.cache.disk.enabled:false}") boolean diskEnabled,
+            @Value("${feasto.cache.disk.directory:${java.io.tmpdir}/feasto-cache}") String directory,
+            @Value("${feasto.cache.disk.sizeMb:256}") long diskSizeMb,
+            @Value("${feasto.cache.disk.regions:restaurantById,restaurantsAll,reviewsByRestaurant}") String[] diskRegions)
+            throws IOException {
+        XmlConfiguration xml = new XmlConfiguration(ehcacheXml.getURL(), getClass().getClassLoader());
+        FluentConfigurationBuilder<?> builder = xml.derive()
+                .withService(valueSerialization())
+                .withService(new DefaultSizeOfEngineProviderConfiguration(MAX_SIZED_OBJECT_MB, MemoryUnit.MB,
+                        MAX_SIZED_OBJECT_GRAPH));
+        Set<String> persisted = diskEnabled ? persistableRegions(diskRegions) : Set.of();
+        if (!persisted.isEmpty())
+            builder = builder.withService(new CacheManagerPersistenceConfiguration(new File(directory)));
+        for (String alias : xml.getCacheConfigurations().keySet()) {
+            CacheTierProperties.Tiers tiers = tierProperties.getRegions().get(alias);
+            boolean disk = persisted.contains(alias);
+            if (tiers == null && !disk)
+                continue;
+            builder = builder.updateCache(alias,
+                    cache -> cache.updateResourcePools(pools -> resize(pools, tiers, disk ? diskSizeMb : 0)));
+        }
+        EhcacheCachingProvider provider = (EhcacheCachingProvider) Caching
+                .getCachingProvider(EhcacheCachingProvider.class.getName());
+        return provider.getCacheManager(ehcacheXml.getURI(), builder.build());
+    }
+
+    // Only Spring regions keyed by plain ids can come back from disk: Hibernate
+    // regions (entity/collection/query, all dotted names) would serve rows
+    // changed while the node was down, and process-local regions lose the
+    // state their keys depend on
+    private static Set<String> persistableRegions(String[] regions) {
+        Set<String> persistable = new HashSet<>();
+        for (String region : Arrays.stream(regions).map(String::trim).filter(r -> !r.isEmpty()).toList()) {
+            if (region.contains(".") || "default".equals(region) || PROCESS_LOCAL_REGIONS.contains(region))
+                log.warn("feasto.cache.disk.regions: {} can't be persisted across restarts; keeping it in memory",
+                        region);
+            else
+                persistable.add(region);
+        }
+        return persistable;
+    }
+
+    private static ResourcePools resize(ResourcePools pools, CacheTierProperties.Tiers tiers, long diskSizeMb) {
+        ResourcePoolsBuilder builder = ResourcePoolsBuilder.newResourcePoolsBuilder(pools);
+        if (tiers != null && tiers.getHeap() != null)
+            builder = builder.withReplacing(new SizedResourcePoolImpl<>(ResourceType.Core.HEAP,
+                    tiers.getHeap().toBytes(), MemoryUnit.B, false));
+        else if (tiers != null && tiers.getHeapEntries() != null)
+            builder = builder.withReplacing(new SizedResourcePoolImpl<>(ResourceType.Core.HEAP,
+                    tiers.getHeapEntries(), EntryUnit.ENTRIES, false));
+        if (tiers != null && tiers.getOffheap() != null)
+            builder = builder.withReplacing(new SizedResourcePoolImpl<>(ResourceType.Core.OFFHEAP,
+                    tiers.getOffheap().toBytes(), MemoryUnit.B, false));
+        if (diskSizeMb > 0)
+            builder = builder.withReplacing(new SizedResourcePoolImpl<>(ResourceType.Core.DISK,
+                    diskSizeMb, MemoryUnit.MB, true));
+        return builder.build();
+    }
+
+    // Regions are declared with Object keys/values; anything that leaves the
+    // heap goes through CacheValueSerializer
+    @SuppressWarnings({ "unchecked", "rawtypes" })
+    private static DefaultSerializationProviderConfiguration valueSerialization() {
+        return new DefaultSerializationProviderConfiguration()
+                .addSerializerFor(Object.class, (Class) CacheValueSerializer.class);
+    }
+}
@@ -0,0 +1,27 @@
+package com.tka.feasto.config;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Counts the SQL statements Hibernate prepares on the current thread so list
+ * endpoints can report how many queries a page cost. Registered through
+ * {@code spring.jpa.properties.hibernate.session_factory.statement_inspector};
+ * Hibernate instantiates it itself, hence the static per-thread counter.
+ */
+public class QueryCountInspector implements StatementInspector {
+
+    private static final long serialVersionUID = 1L;
+
+    private static final ThreadLocal<long[]> COUNT = ThreadLocal.withInitial(() -> new long[1]);
+
+    @Override
+    public String inspect(String sql) {
+        COUNT.get()[0]++;
+        return sql; // statement is left unchanged
+    }
+
+    // Statements prepared on this thread so far; callers diff two readings
+    public static long currentCount() {
+        return COUNT.get()[0];
+    }
+}
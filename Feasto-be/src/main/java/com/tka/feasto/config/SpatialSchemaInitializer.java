@@ -0,0 +1,96 @@
+package com.tka.feasto.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Adds the MySQL spatial column used by the native nearby query.
+ *
+ * {@code restaurants.geo_point} is a STORED generated POINT (SRID 4326) derived
+ * from the embedded Address latitude/longitude, so no entity or write path has
+ * to maintain it, and it carries a SPATIAL index. Hibernate's ddl-auto=update
+ * never drops unmapped columns, so this is safe to run on every start.
+ *
+ * Disabled by default; when disabled or when the DDL or the startup probe
+ * query fails (older MySQL, another database) nearby search keeps using the
+ * Java path. Spatial support is decided here only, never by catching a failed
+ * query inside a request's transaction.
+ */
+@Component
+public class SpatialSchemaInitializer {
+
+    private static final Logger log = LoggerFactory.getLogger(SpatialSchemaInitializer.class);
+
+    public static final String GEO_COLUMN = "geo_point";
+    private static final String GEO_INDEX = "idx_restaurants_geo_point";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Value("${feasto.nearby.spatial.enabled:false}")
+    private boolean enabled;
+
+    private volatile boolean ready;
+
+    // True when the spatial column and index exist and native queries may use them
+    public boolean isReady() {
+        return ready;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        if (!enabled)
+            return;
+        try {
+            if (!columnExists()) {
+                // Rows without usable coordinates get POINT(0 0); the nearby query
+                // filters on latitude/longitude IS NOT NULL anyway.
+                jdbcTemplate.execute("ALTER TABLE restaurants ADD COLUMN " + GEO_COLUMN
+                        + " POINT SRID 4326 GENERATED ALWAYS AS (ST_SRID(CASE"
+                        + " WHEN latitude BETWEEN -90 AND 90 AND longitude BETWEEN -180 AND 180"
+                        + " THEN POINT(longitude, latitude) ELSE POINT(0, 0) END, 4326)) STORED NOT NULL");
+            }
+            if (!indexExists()) {
+                jdbcTemplate.execute("CREATE SPATIAL INDEX " + GEO_INDEX + " ON restaurants (" + GEO_COLUMN + ")");
+            }
+            probe();
+            ready = true;
+            log.info("Spatial nearby search enabled on restaurants.{}", GEO_COLUMN);
+        } catch (Exception ex) {
+            ready = false;
+            log.warn("Spatial nearby search unavailable, using Java fallback: {}", ex.getMessage());
+        }
+    }
+
+    // Run the functions the nearby queries use once, here, so an unsupported
+    // server is found outside any request transaction; a native query failing
+    // inside one would leave it rollback-only even after a Java fallback
+    private void probe() {
+        jdbcTemplate.queryForList("SELECT r.restaurant_id, ROUND(ST_Distance_Sphere(r." + GEO_COLUMN
+                + ", ST_SRID(POINT(0, 0), 4326)) / 1000, 6) FROM restaurants r"
+                + " WHERE MBRContains(ST_GeomFromText('POLYGON((-1 -1, 1 -1, 1 1, -1 1, -1 -1))', 4326,"
+                + " 'axis-order=long-lat'), r." + GEO_COLUMN + ") LIMIT 1");
+    }
+
+    private boolean columnExists() {
+        Integer count = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM information_schema.COLUMNS WHERE TABLE_SCHEMA = DATABASE()"
+                        + " AND TABLE_NAME = 'restaurants' AND COLUMN_NAME = ?",
+                Integer.class, GEO_COLUMN);
+        return count != null && count > 0;
+    }
+
+    private boolean indexExists() {
+        Integer count = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM information_schema.STATISTICS WHERE TABLE_SCHEMA = DATABASE()"
+                        + " AND TABLE_NAME = 'restaurants' AND INDEX_NAME = ?",
+                Integer.class, GEO_INDEX);
+        return count != null && count > 0;
+    }
+}
@@ -89,6 +89,7 @@ public class DeliveryPartnerController {
     // Publish delivery partner location updates to subscribers (WebSocket topics)
     @PostMapping("/location")
     public ResponseEntity<Void> publishLocation(@RequestBody LocationUpdateDTO dto) {
+        deliveryPartnerService.updateLiveLocation(dto.getDeliveryPartnerId(), dto.getLatitude(), dto.getLongitude());
         // broadcast to topic
         messagingTemplate.convertAndSend("/topic/delivery/locations", dto);
         // user-specific queue
@@ -3,19 +3,23 @@ package com.tka.feasto.controller;
 import java.util.List;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import com.tka.feasto.cache.OrderCacheInvalidator;
 import com.tka.feasto.dto.OrderDTO;
 import com.tka.feasto.enums.OrderStatus;
 import com.tka.feasto.service.OrderService;
+import com.tka.feasto.util.ETags;
 
 import jakarta.validation.Valid;
 
@@ -26,6 +30,10 @@ public class OrderController {
     @Autowired
     private OrderService orderService;
 
+    // change counters behind the order ETags (If-None-Match -> 304)
+    @Autowired
+    private OrderCacheInvalidator orderCacheInvalidator;
+
     @PostMapping
     public ResponseEntity<OrderDTO> placeOrder(@Valid @RequestBody OrderDTO dto) {
         return ResponseEntity.ok(orderService.placeOrder(dto));
@@ -51,13 +59,21 @@ public class OrderController {
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<OrderDTO> getOrderById(@PathVariable Long id) {
-        return ResponseEntity.ok(orderService.getOrderById(id));
+    public ResponseEntity<OrderDTO> getOrderById(@PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String etag = orderCacheInvalidator.orderETag(id);
+        if (ETags.matches(ifNoneMatch, etag))
+            return ETags.notModified(etag);
+        return ResponseEntity.ok().eTag(etag).body(orderService.getOrderById(id));
     }
 
     @GetMapping("/user/{userId}")
-    public ResponseEntity<List<OrderDTO>> getOrdersByUserId(@PathVariable Long userId) {
-        return ResponseEntity.ok(orderService.getOrdersByUserId(userId));
+    public ResponseEntity<List<OrderDTO>> getOrdersByUserId(@PathVariable Long userId,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String etag = orderCacheInvalidator.userOrdersETag(userId);
+        if (ETags.matches(ifNoneMatch, etag))
+            return ETags.notModified(etag);
+        return ResponseEntity.ok().eTag(etag).body(orderService.getOrdersByUserId(userId));
     }
 
     @PutMapping("/{id}/status") // PLACED, CANCELLED, PREPARING, ACCEPTED, REJECTED, OUT_FOR_DELIVERY, DELIVERED 
@@ -73,8 +89,12 @@ public class OrderController {
     }
 
     @GetMapping("/quick-commerce/user/{userId}")
-    public ResponseEntity<List<OrderDTO>> getQuickCommerceOrdersByUserId(@PathVariable Long userId) {
+    public ResponseEntity<List<OrderDTO>> getQuickCommerceOrdersByUserId(@PathVariable Long userId,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
         // Filter by orderType in service if needed
-        return ResponseEntity.ok(orderService.getOrdersByUserId(userId));
+        String etag = orderCacheInvalidator.userOrdersETag(userId);
+        if (ETags.matches(ifNoneMatch, etag))
+            return ETags.notModified(etag);
+        return ResponseEntity.ok().eTag(etag).body(orderService.getOrdersByUserId(userId));
     }
 }
\ No newline at end of file
@@ -1,5 +1,6 @@
 package com.tka.feasto.controller;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -7,6 +8,8 @@ import java.util.concurrent.TimeUnit;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -14,6 +17,7 @@ import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
@@ -21,15 +25,24 @@ import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.tka.feasto.cache.CatalogVersions;
+import com.tka.feasto.cache.OrderCacheInvalidator;
+import com.tka.feasto.cache.ResponseBytesCache;
+import com.tka.feasto.dto.DishSearchResultDTO;
 import com.tka.feasto.dto.LoginDTO;
+import com.tka.feasto.dto.MapTileDTO;
+import com.tka.feasto.dto.MenuChangesDTO;
 import com.tka.feasto.dto.MenuItemDTO;
+import com.tka.feasto.dto.NearbyCursorPageDTO;
 import com.tka.feasto.dto.OrderDTO;
 import com.tka.feasto.dto.RestaurantDTO;
-import com.tka.feasto.dto.ReviewDTO;
+import com.tka.feasto.dto.SuggestionDTO;
+import com.tka.feasto.entity.Location;
 import com.tka.feasto.enums.OrderStatus;
 import com.tka.feasto.service.OrderService;
 import com.tka.feasto.service.RestaurantService;
 import com.tka.feasto.service.ReviewService;
+import com.tka.feasto.util.ETags;
 
 @RestController
 @RequestMapping("/restaurants")
@@ -45,6 +58,17 @@ public class RestaurantController {
     @Autowired
     private ReviewService reviewService;
 
+    // serialized JSON for the hot restaurant/menu/reviews reads
+    @Autowired
+    private ResponseBytesCache responseBytesCache;
+
+    // version counters behind the catalog ETags (If-None-Match -> 304)
+    @Autowired
+    private CatalogVersions catalogVersions;
+
+    @Autowired
+    private OrderCacheInvalidator orderCacheInvalidator;
+
     // small executor for background SSE tasks
     private final ExecutorService sseExecutor = Executors.newCachedThreadPool();
 
@@ -65,8 +89,14 @@ public class RestaurantController {
 
     // Get restaurant by ID
     @GetMapping("/{id}")
-    public ResponseEntity<RestaurantDTO> getRestaurantById(@PathVariable Long id) {
-        return ResponseEntity.ok(restaurantService.getRestaurantById(id));
+    public ResponseEntity<byte[]> getRestaurantById(@PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String etag = catalogVersions.etag(CatalogVersions.RESTAURANT, id);
+        if (ETags.matches(ifNoneMatch, etag))
+            return ETags.notModified(etag);
+        return responseBytesCache.respond(CatalogVersions.RESTAURANT, id, acceptEncoding, etag,
+                () -> restaurantService.getRestaurantById(id));
     }
 
     // List all active restaurants
@@ -105,11 +135,70 @@ public class RestaurantController {
         return ResponseEntity.ok(result);
     }
 
+    // Cursor-based nearby listing for infinite scroll. First call without
+    // afterDistanceKm/afterId, then pass back nextAfterDistanceKm/nextAfterId.
+    @GetMapping("/nearby/cursor")
+    public ResponseEntity<NearbyCursorPageDTO> getNearbyRestaurantsAfter(
+            @RequestParam double mylat,
+            @RequestParam double mylon,
+            @RequestParam(defaultValue = "10") int limit,
+            @RequestParam(name = "maxDistanceKm", defaultValue = "50") double maxDistanceKm,
+            @RequestParam(required = false) Double afterDistanceKm,
+            @RequestParam(required = false) Long afterId) {
+        return ResponseEntity.ok(restaurantService
+                .findNearbyRestaurantsAfter(mylat, mylon, limit, maxDistanceKm, afterDistanceKm, afterId));
+    }
+
+    // Clustered markers for one slippy-map tile (same z/x/y scheme as the map tiles)
+    @GetMapping("/tiles/{z}/{x}/{y}")
+    public ResponseEntity<MapTileDTO> getMapTile(@PathVariable int z, @PathVariable int x, @PathVariable int y) {
+        return ResponseEntity.ok(restaurantService.getMapTile(z, x, y));
+    }
+
+    // Browse with combined filters, e.g. ?cuisine=Italian,Chinese&city=Pune&minRating=4
+    @GetMapping("/browse")
+    public ResponseEntity<Page<RestaurantDTO>> browseRestaurants(
+            @RequestParam(required = false) List<String> cuisine,
+            @RequestParam(required = false) List<String> city,
+            @RequestParam(required = false) Double minRating,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int limit) {
+        return ResponseEntity.ok(restaurantService.browseRestaurants(cuisine, city, minRating, page, limit));
+    }
+
+    // Dish search with facets, e.g. ?q=paneer&mylat=..&mylon=..&maxPrice=300;
+    // without mylat/mylon it searches every active restaurant
+    @GetMapping("/dishes")
+    public ResponseEntity<DishSearchResultDTO> searchDishes(
+            @RequestParam(required = false) String q,
+            @RequestParam(required = false) Double mylat,
+            @RequestParam(required = false) Double mylon,
+            @RequestParam(defaultValue = "10") double radiusKm,
+            @RequestParam(required = false) String cuisine,
+            @RequestParam(required = false) String category,
+            @RequestParam(required = false) Double minPrice,
+            @RequestParam(required = false) Double maxPrice,
+            @RequestParam(defaultValue = "false") boolean availableOnly,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "20") int limit) {
+        return ResponseEntity.ok(restaurantService.searchDishes(q, mylat, mylon, radiusKm, cuisine, category,
+                minPrice, maxPrice, availableOnly, page, limit));
+    }
+
+    // Typeahead: most popular restaurant, cuisine and dish names starting with q
+    // (any word of the name), served from the in-memory suggestion trie
+    @GetMapping("/suggest")
+    public ResponseEntity<List<SuggestionDTO>> suggest(@RequestParam String q,
+            @RequestParam(defaultValue = "8") int limit) {
+        return ResponseEntity.ok(restaurantService.suggest(q, limit));
+    }
+
     // New: random restaurants to show before location is provided
     @GetMapping("/random")
     public ResponseEntity<List<RestaurantDTO>> getRandomRestaurants(
-            @RequestParam(defaultValue = "6") int limit) {
-        return ResponseEntity.ok(restaurantService.findRandomRestaurants(limit));
+            @RequestParam(defaultValue = "6") int limit,
+            @RequestParam(required = false) String city) {
+        return ResponseEntity.ok(restaurantService.findRandomRestaurants(limit, city));
     }
 
     // Server-Sent Events: stream nearby restaurants periodically (useful for
@@ -169,6 +258,14 @@ public class RestaurantController {
         return ResponseEntity.ok(restaurantService.updateMenuItem(restaurantId, menuItemId, dto, image));
     }
 
+    // set the delivery polygon as a list of {latitude, longitude} vertices; an
+    // empty list clears it and the restaurant delivers across the search radius
+    @PutMapping("/{restaurantId}/delivery-zone")
+    public ResponseEntity<RestaurantDTO> updateDeliveryZone(@PathVariable Long restaurantId,
+            @RequestBody List<Location> zone) {
+        return ResponseEntity.ok(restaurantService.updateDeliveryZone(restaurantId, zone));
+    }
+
     // delete a menu item of a restaurant
     @DeleteMapping("/{restaurantId}/menu/{menuItemId}")
     public ResponseEntity<Void> deleteMenuItem(@PathVariable Long restaurantId, @PathVariable Long menuItemId) {
@@ -180,8 +277,23 @@ public class RestaurantController {
 
     // get menu items of a restaurant
     @GetMapping("/{restaurantId}/menu")
-    public ResponseEntity<List<MenuItemDTO>> getMenuItemsByRestaurantId(@PathVariable Long restaurantId) {
-        return ResponseEntity.ok(restaurantService.getMenuItemsByRestaurantId(restaurantId));
+    public ResponseEntity<byte[]> getMenuItemsByRestaurantId(@PathVariable Long restaurantId,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String etag = catalogVersions.etag(CatalogVersions.MENU, restaurantId);
+        if (ETags.matches(ifNoneMatch, etag))
+            return ETags.notModified(etag);
+        return responseBytesCache.respond(CatalogVersions.MENU, restaurantId, acceptEncoding, etag,
+                () -> restaurantService.getMenuItemsByRestaurantId(restaurantId));
+    }
+
+    // Menu delta sync: items added/updated/toggled/removed since ?since=<version>
+    // (or ?sinceTime=<ISO date-time>); neither returns the full menu + version
+    @GetMapping("/{restaurantId}/menu/changes")
+    public ResponseEntity<MenuChangesDTO> getMenuChanges(@PathVariable Long restaurantId,
+            @RequestParam(required = false) Long since,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime sinceTime) {
+        return ResponseEntity.ok(restaurantService.getMenuChanges(restaurantId, since, sinceTime));
     }
 
     // get orders of a restaurant
@@ -190,14 +302,25 @@ public class RestaurantController {
             @PathVariable Long restaurantId,
             @RequestParam(defaultValue = "PLACED") OrderStatus status,
             @RequestParam(defaultValue = "0") int page,
-            @RequestParam(defaultValue = "10") int limit) {
-        return ResponseEntity.ok(orderService.getOrdersByRestaurantId(restaurantId, status, page, limit));
+            @RequestParam(defaultValue = "10") int limit,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String etag = orderCacheInvalidator.restaurantOrdersETag(restaurantId);
+        if (ETags.matches(ifNoneMatch, etag))
+            return ETags.notModified(etag);
+        return ResponseEntity.ok().eTag(etag)
+                .body(orderService.getOrdersByRestaurantId(restaurantId, status, page, limit));
     }
 
     // get reviews of a restaurant
     @GetMapping("/{restaurantId}/reviews")
-    public ResponseEntity<List<ReviewDTO>> getReviewsByRestaurantId(@PathVariable Long restaurantId) {
-        return ResponseEntity.ok(reviewService.getReviewsByRestaurantId(restaurantId));
+    public ResponseEntity<byte[]> getReviewsByRestaurantId(@PathVariable Long restaurantId,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch) {
+        String etag = catalogVersions.etag(CatalogVersions.REVIEWS, restaurantId);
+        if (ETags.matches(ifNoneMatch, etag))
+            return ETags.notModified(etag);
+        return responseBytesCache.respond(CatalogVersions.REVIEWS, restaurantId, acceptEncoding, etag,
+                () -> reviewService.getReviewsByRestaurantId(restaurantId));
     }
 
     // Analytics: consolidated metrics for a restaurant
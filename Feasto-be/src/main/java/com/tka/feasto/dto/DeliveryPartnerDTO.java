@@ -1,5 +1,6 @@
 package com.tka.feasto.dto;
 
+import java.io.Serializable;
 import java.time.LocalDateTime;
 
 import com.tka.feasto.entity.Location;
@@ -11,7 +12,9 @@ import lombok.NoArgsConstructor;
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-public class DeliveryPartnerDTO {
+public class DeliveryPartnerDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
 
     private Long deliveryPartnerId;
     private String name;
@@ -0,0 +1,17 @@
+package com.tka.feasto.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DishHitDTO {
+
+    private MenuItemDTO menuItem;
+    private String restaurantName;
+    private String cuisineType;
+    // Set when the search was near a location
+    private Double distanceKm;
+}
@@ -0,0 +1,21 @@
+package com.tka.feasto.dto;
+
+import java.util.List;
+import java.util.Map;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DishSearchResultDTO {
+
+    private List<DishHitDTO> content;
+    private int page;
+    private int limit;
+    private long totalElements;
+    // facet (cuisine, category, price, availability) -> value -> item count
+    private Map<String, Map<String, Long>> facets;
+}
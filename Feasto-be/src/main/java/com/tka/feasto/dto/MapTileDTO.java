@@ -0,0 +1,23 @@
+package com.tka.feasto.dto;
+
+import java.io.Serializable;
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MapTileDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private int z;
+    private int x;
+    private int y;
+    // Active restaurants inside the tile
+    private int total;
+    private List<TileClusterDTO> clusters;
+}
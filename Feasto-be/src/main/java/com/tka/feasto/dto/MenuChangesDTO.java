@@ -0,0 +1,23 @@
+package com.tka.feasto.dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MenuChangesDTO {
+
+    private Long restaurantId;
+    // Pass back as ?since= on the next sync
+    private Long version;
+    // True when this is the whole menu (no since/sinceTime given) rather than a delta
+    private boolean full;
+    // Current state of every item added, updated or toggled since the client's version
+    private List<MenuItemDTO> changed;
+    // Ids of items deleted since the client's version
+    private List<Long> removed;
+}
@@ -1,5 +1,7 @@
 package com.tka.feasto.dto;
 
+import java.io.Serializable;
+
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -7,7 +9,9 @@ import lombok.NoArgsConstructor;
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-public class MenuItemDTO {
+public class MenuItemDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
 
     private Long menuItemId;
     private Long restaurantId;
@@ -0,0 +1,20 @@
+package com.tka.feasto.dto;
+
+import java.util.List;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class NearbyCursorPageDTO {
+
+    private List<RestaurantDTO> content;
+    // Cursor to pass back as afterDistanceKm/afterId for the next slice; null
+    // when there are no more results
+    private Double nextAfterDistanceKm;
+    private Long nextAfterId;
+    private boolean hasMore;
+}
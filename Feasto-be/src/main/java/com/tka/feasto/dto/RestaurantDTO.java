@@ -1,23 +1,31 @@
 package com.tka.feasto.dto;
 
+import java.io.Serializable;
 import java.time.LocalDateTime;
 import java.util.List;
 
 import com.tka.feasto.entity.Address;
+import com.tka.feasto.entity.Location;
 
 import lombok.AllArgsConstructor;
+import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-public class RestaurantDTO {
+@Builder(toBuilder = true)
+public class RestaurantDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
 
     private Long restaurantId;
     private String name;
     private String description;
     private Address address;
+    // Delivery polygon vertices; omitted in listings
+    private List<Location> deliveryZone;
     private String phoneNumber;
     private String cuisineType;
     // Credentials (used for registration/login flows)
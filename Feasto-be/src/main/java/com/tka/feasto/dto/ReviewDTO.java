@@ -1,5 +1,6 @@
 package com.tka.feasto.dto;
 
+import java.io.Serializable;
 import java.time.LocalDateTime;
 
 import lombok.AllArgsConstructor;
@@ -9,7 +10,9 @@ import lombok.NoArgsConstructor;
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
-public class ReviewDTO {
+public class ReviewDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
 
     private Long reviewId;
     private Long userId;
@@ -0,0 +1,18 @@
+package com.tka.feasto.dto;
+
+import com.tka.feasto.enums.SuggestionType;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SuggestionDTO {
+
+    private String text;
+    private SuggestionType type;
+    // Set for RESTAURANT suggestions so the client can open it directly
+    private Long restaurantId;
+}
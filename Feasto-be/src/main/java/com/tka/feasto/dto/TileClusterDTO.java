@@ -0,0 +1,24 @@
+package com.tka.feasto.dto;
+
+import java.io.Serializable;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class TileClusterDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    // Centroid of the restaurants in the cluster (exact position when count == 1)
+    private double latitude;
+    private double longitude;
+    private int count;
+    // Representative marker: the best rated restaurant in the cluster
+    private Long restaurantId;
+    private String name;
+    private Double rating;
+}
@@ -1,5 +1,7 @@
 package com.tka.feasto.entity;
 
+import java.io.Serializable;
+
 import org.hibernate.annotations.Cache;
 import org.hibernate.annotations.CacheConcurrencyStrategy;
 
@@ -16,7 +18,10 @@ import lombok.NoArgsConstructor;
 
 @Cacheable
 @Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
-public class Address {
+public class Address implements Serializable {
+
+	private static final long serialVersionUID = 1L;
+
 	private String street;
 	private String city;
 	private String state;
@@ -0,0 +1,44 @@
+package com.tka.feasto.entity;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+/**
+ * Stores a delivery polygon as one text column: vertices separated by ';',
+ * each written as "latitude,longitude".
+ */
+@Converter
+public class DeliveryZoneConverter implements AttributeConverter<List<Location>, String> {
+
+    @Override
+    public String convertToDatabaseColumn(List<Location> zone) {
+        if (zone == null || zone.isEmpty())
+            return null;
+        StringBuilder sb = new StringBuilder(zone.size() * 24);
+        for (Location point : zone) {
+            if (sb.length() > 0)
+                sb.append(';');
+            sb.append(String.format(Locale.ROOT, "%.7f,%.7f", point.getLatitude(), point.getLongitude()));
+        }
+        return sb.toString();
+    }
+
+    @Override
+    public List<Location> convertToEntityAttribute(String column) {
+        if (column == null || column.isBlank())
+            return null;
+        List<Location> zone = new ArrayList<>();
+        for (String vertex : column.split(";")) {
+            int comma = vertex.indexOf(',');
+            if (comma < 0)
+                continue;
+            zone.add(new Location(Double.parseDouble(vertex.substring(0, comma).trim()),
+                    Double.parseDouble(vertex.substring(comma + 1).trim())));
+        }
+        return zone;
+    }
+}
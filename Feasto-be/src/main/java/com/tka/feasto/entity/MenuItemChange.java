@@ -0,0 +1,49 @@
+package com.tka.feasto.entity;
+
+import java.time.LocalDateTime;
+
+import org.hibernate.annotations.CreationTimestamp;
+
+import com.tka.feasto.enums.MenuChangeType;
+
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One row per menu item add/update/toggle/delete. The change id doubles as
+ * the menu version clients sync from; ids are plain columns (no FKs) so
+ * removals outlive the item they describe.
+ */
+@Entity
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Table(name = "menu_item_changes", indexes = {
+        @Index(name = "idx_menu_item_changes_restaurant", columnList = "restaurantId, changeId"),
+        @Index(name = "idx_menu_item_changes_restaurant_time", columnList = "restaurantId, changedAt")
+})
+public class MenuItemChange {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long changeId;
+
+    private Long restaurantId;
+
+    private Long menuItemId;
+
+    @Enumerated(EnumType.STRING)
+    private MenuChangeType changeType;
+
+    @CreationTimestamp
+    private LocalDateTime changedAt;
+}
@@ -13,6 +13,8 @@ import com.tka.feasto.enums.Role;
 
 import jakarta.persistence.Cacheable;
 import jakarta.persistence.CascadeType;
+import jakarta.persistence.Column;
+import jakarta.persistence.Convert;
 import jakarta.persistence.Embedded;
 import jakarta.persistence.Entity;
 import jakarta.persistence.EnumType;
@@ -51,6 +53,11 @@ public class Restaurant {
     @Embedded
     private Address address;
 
+    // Area the restaurant delivers to; null means "within the search radius"
+    @Convert(converter = DeliveryZoneConverter.class)
+    @Column(name = "delivery_zone", columnDefinition = "TEXT")
+    private List<Location> deliveryZone;
+
     private String phoneNumber;
 
     // Credentials for restaurant login
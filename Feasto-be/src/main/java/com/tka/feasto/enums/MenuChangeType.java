@@ -0,0 +1,8 @@
+package com.tka.feasto.enums;
+
+public enum MenuChangeType {
+    ADDED,
+    UPDATED,
+    TOGGLED, // only availability changed
+    REMOVED
+}
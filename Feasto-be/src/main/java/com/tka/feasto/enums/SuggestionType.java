@@ -0,0 +1,7 @@
+package com.tka.feasto.enums;
+
+public enum SuggestionType {
+    RESTAURANT,
+    CUISINE,
+    DISH
+}
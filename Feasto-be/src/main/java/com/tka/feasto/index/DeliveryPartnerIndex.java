@@ -0,0 +1,243 @@
+package com.tka.feasto.index;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.tka.feasto.entity.DeliveryPartner;
+import com.tka.feasto.util.DistanceUtil;
+import com.tka.feasto.util.TopKSelector;
+
+/**
+ * Live uniform-grid index of available, located delivery partners for
+ * nearest-partner queries.
+ *
+ * It is fed by {@link com.tka.feasto.cache.PartnerPresenceStore}: availability
+ * changes, heartbeats and expiries update it in place. A k-nearest query walks
+ * grid rings outward from the origin and stops once the next ring cannot hold
+ * anything closer than the current k-th partner.
+ */
+@Component
+public class DeliveryPartnerIndex {
+
+    private static final double KM_PER_DEG_LAT = 111.0;
+    private static final double KM_PER_DEG_LON_AT_EQUATOR = 111.320;
+
+    @Value("${feasto.partners.index.cellSizeKm:1.0}")
+    private double cellSizeKm;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<Long, Partner> partners = new HashMap<>();
+    // packed (row, col) cell key -> partners in that cell
+    private final Map<Long, List<Partner>> cells = new HashMap<>();
+
+    private volatile boolean ready;
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    // Replace the content with the given partners (available and located only)
+    public void rebuild(Collection<DeliveryPartner> available) {
+        lock.writeLock().lock();
+        try {
+            partners.clear();
+            cells.clear();
+            for (DeliveryPartner p : available) {
+                if (Boolean.TRUE.equals(p.getAvailable()) && located(p)) {
+                    put(p.getDeliveryPartnerId(), p.getCurrentLocation().getLatitude(),
+                            p.getCurrentLocation().getLongitude(), rating(p));
+                }
+            }
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Add or move an available partner
+    public void track(Long partnerId, double lat, double lon, double rating) {
+        if (partnerId == null)
+            return;
+        lock.writeLock().lock();
+        try {
+            removeLocked(partnerId);
+            put(partnerId, lat, lon, rating);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long partnerId) {
+        if (partnerId == null)
+            return;
+        lock.writeLock().lock();
+        try {
+            removeLocked(partnerId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Up to k available partners within maxKm of (lat, lon), nearest first
+     * (ties by partner id).
+     */
+    public Nearest nearest(double lat, double lon, int k, double maxKm) {
+        lock.readLock().lock();
+        try {
+            List<Partner> found = new ArrayList<>();
+            List<Double> distances = new ArrayList<>();
+            TopKSelector top = new TopKSelector(Math.max(0, k));
+            if (k <= 0 || partners.isEmpty())
+                return new Nearest(new long[0], new double[0], new double[0]);
+
+            double cellDeg = cellDeg();
+            double cosLat = Math.max(Math.cos(Math.toRadians(lat)), 0.01);
+            int rowSpan = (int) Math.ceil(maxKm / KM_PER_DEG_LAT / cellDeg);
+            int colSpan = (int) Math.ceil(maxKm / (KM_PER_DEG_LON_AT_EQUATOR * cosLat) / cellDeg);
+            int row0 = cellIndex(lat, cellDeg);
+            int col0 = cellIndex(lon, cellDeg);
+            for (int ring = 0; ring <= Math.max(rowSpan, colSpan); ring++) {
+                // nothing in this or any later ring can beat the current k-th
+                if (top.size() == k && ringLowerBoundKm(ring, lat, cellDeg) > top.worstKey())
+                    break;
+                for (int dr = -ring; dr <= ring; dr++) {
+                    if (Math.abs(dr) > rowSpan)
+                        continue;
+                    int step = Math.abs(dr) == ring ? 1 : 2 * ring;
+                    for (int dc = -ring; dc <= ring; dc += step) {
+                        if (Math.abs(dc) > colSpan)
+                            continue;
+                        List<Partner> cell = cells.get(cellKey(row0 + dr, col0 + dc));
+                        if (cell == null)
+                            continue;
+                        for (Partner p : cell) {
+                            double d = DistanceUtil.haversine(lat, lon, p.lat, p.lon);
+                            if (d > maxKm)
+                                continue;
+                            found.add(p);
+                            distances.add(d);
+                            top.offer(found.size() - 1, d, p.id);
+                        }
+                    }
+                }
+            }
+            int[] ranked = top.drainSorted();
+            long[] ids = new long[ranked.length];
+            double[] dist = new double[ranked.length];
+            double[] ratings = new double[ranked.length];
+            for (int i = 0; i < ranked.length; i++) {
+                Partner p = found.get(ranked[i]);
+                ids[i] = p.id;
+                dist[i] = distances.get(ranked[i]);
+                ratings[i] = p.rating;
+            }
+            return new Nearest(ids, dist, ratings);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Lower bound on the distance from the origin to any cell of the ring: at
+    // least (ring - 1) whole cells away, measured with the shortest degree of
+    // longitude those cells can have
+    private static double ringLowerBoundKm(int ring, double lat, double cellDeg) {
+        if (ring <= 1)
+            return 0;
+        double farLat = Math.min(89.0, Math.abs(lat) + (ring + 1) * cellDeg);
+        return (ring - 1) * cellDeg * KM_PER_DEG_LAT * Math.cos(Math.toRadians(farLat));
+    }
+
+    private void put(long id, double lat, double lon, double rating) {
+        double cellDeg = cellDeg();
+        Partner p = new Partner(id, lat, lon, rating, cellKey(cellIndex(lat, cellDeg), cellIndex(lon, cellDeg)));
+        partners.put(id, p);
+        cells.computeIfAbsent(p.cellKey, c -> new ArrayList<>()).add(p);
+    }
+
+    private void removeLocked(Long id) {
+        Partner p = partners.remove(id);
+        if (p == null)
+            return;
+        List<Partner> cell = cells.get(p.cellKey);
+        if (cell != null) {
+            cell.remove(p);
+            if (cell.isEmpty())
+                cells.remove(p.cellKey);
+        }
+    }
+
+    private static boolean located(DeliveryPartner p) {
+        return p.getCurrentLocation() != null && p.getCurrentLocation().getLatitude() != null
+                && p.getCurrentLocation().getLongitude() != null;
+    }
+
+    private static double rating(DeliveryPartner p) {
+        return p.getAverageRating() != null ? p.getAverageRating() : 0.0;
+    }
+
+    private double cellDeg() {
+        return Math.max(cellSizeKm, 0.1) / KM_PER_DEG_LAT;
+    }
+
+    private static int cellIndex(double degrees, double cellDeg) {
+        return (int) Math.floor(degrees / cellDeg);
+    }
+
+    private static long cellKey(int row, int col) {
+        return ((long) row << 32) | (col & 0xffffffffL);
+    }
+
+    private static class Partner {
+        final long id;
+        final double lat;
+        final double lon;
+        final double rating;
+        final long cellKey;
+
+        Partner(long id, double lat, double lon, double rating, long cellKey) {
+            this.id = id;
+            this.lat = lat;
+            this.lon = lon;
+            this.rating = rating;
+            this.cellKey = cellKey;
+        }
+    }
+
+    /** Nearest partners as parallel arrays, nearest first. */
+    public static class Nearest {
+        private final long[] partnerIds;
+        private final double[] distancesKm;
+        private final double[] ratings;
+
+        Nearest(long[] partnerIds, double[] distancesKm, double[] ratings) {
+            this.partnerIds = partnerIds;
+            this.distancesKm = distancesKm;
+            this.ratings = ratings;
+        }
+
+        public int size() {
+            return partnerIds.length;
+        }
+
+        public long[] getPartnerIds() {
+            return partnerIds;
+        }
+
+        public double[] getDistancesKm() {
+            return distancesKm;
+        }
+
+        public double[] getRatings() {
+            return ratings;
+        }
+    }
+}
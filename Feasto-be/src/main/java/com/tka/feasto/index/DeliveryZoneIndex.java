@@ -0,0 +1,237 @@
+package com.tka.feasto.index;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.ToDoubleFunction;
+
+import org.springframework.stereotype.Component;
+
+import com.tka.feasto.entity.Location;
+import com.tka.feasto.entity.Restaurant;
+
+/**
+ * Delivery polygons of active restaurants, answering "which restaurants
+ * deliver to this point".
+ *
+ * Polygon bounding boxes are packed into a static R-tree (Sort-Tile-Recursive
+ * bulk load, 16 entries per node); a point query descends only the nodes whose
+ * box contains it and runs the exact even-odd ray test on the few polygons left.
+ * The tree is an immutable snapshot rebuilt from the zone map on every change,
+ * which only happens when a restaurant edits its zone.
+ *
+ * Restaurants without a zone are not in the index and keep the plain radius
+ * rule; see {@link Coverage#allows(long)}.
+ */
+@Component
+public class DeliveryZoneIndex {
+
+    private static final int NODE_CAPACITY = 16;
+
+    private final Map<Long, Zone> zones = new HashMap<>();
+
+    private volatile Snapshot snapshot = new Snapshot(new ArrayList<>());
+
+    private volatile boolean ready;
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    public synchronized void rebuild(Collection<Restaurant> restaurants) {
+        zones.clear();
+        for (Restaurant r : restaurants) {
+            Zone zone = toZone(r);
+            if (zone != null)
+                zones.put(zone.restaurantId, zone);
+        }
+        snapshot = new Snapshot(zones.values());
+        ready = true;
+    }
+
+    // Add, replace or drop (inactive / no zone) one restaurant's polygon
+    public synchronized void upsert(Restaurant restaurant) {
+        if (restaurant == null || restaurant.getRestaurantId() == null)
+            return;
+        Zone zone = toZone(restaurant);
+        Zone previous = zone != null ? zones.put(zone.restaurantId, zone) : zones.remove(restaurant.getRestaurantId());
+        if (zone != null || previous != null)
+            snapshot = new Snapshot(zones.values());
+    }
+
+    // Restaurants whose delivery polygon contains (lat, lon)
+    public Coverage coverage(double lat, double lon) {
+        Snapshot s = snapshot;
+        Set<Long> covering = new HashSet<>();
+        if (s.root != null) {
+            Deque<Node> stack = new ArrayDeque<>();
+            stack.push(s.root);
+            while (!stack.isEmpty()) {
+                Node node = stack.pop();
+                if (!node.contains(lat, lon))
+                    continue;
+                if (node.children != null) {
+                    for (Node child : node.children)
+                        stack.push(child);
+                } else {
+                    for (Zone zone : node.zones) {
+                        if (zone.contains(lat, lon))
+                            covering.add(zone.restaurantId);
+                    }
+                }
+            }
+        }
+        return new Coverage(s.zoned, covering);
+    }
+
+    private static Zone toZone(Restaurant r) {
+        List<Location> points = r.getDeliveryZone();
+        if (!Boolean.TRUE.equals(r.getIsActive()) || points == null || points.size() < 3)
+            return null;
+        double[] lats = new double[points.size()];
+        double[] lons = new double[points.size()];
+        for (int i = 0; i < points.size(); i++) {
+            lats[i] = points.get(i).getLatitude();
+            lons[i] = points.get(i).getLongitude();
+        }
+        return new Zone(r.getRestaurantId(), lats, lons);
+    }
+
+    /** Point-in-zone answer for one location, reused across a result page. */
+    public static class Coverage {
+        private final Set<Long> zoned;
+        private final Set<Long> covering;
+
+        Coverage(Set<Long> zoned, Set<Long> covering) {
+            this.zoned = zoned;
+            this.covering = covering;
+        }
+
+        // Zoned restaurants deliver only inside their polygon, the rest everywhere
+        // the radius search reaches
+        public boolean allows(long restaurantId) {
+            return covering.contains(restaurantId) || !zoned.contains(restaurantId);
+        }
+    }
+
+    private static class Zone {
+        final long restaurantId;
+        final double[] lats;
+        final double[] lons;
+        final double minLat;
+        final double maxLat;
+        final double minLon;
+        final double maxLon;
+
+        Zone(long restaurantId, double[] lats, double[] lons) {
+            this.restaurantId = restaurantId;
+            this.lats = lats;
+            this.lons = lons;
+            minLat = Arrays.stream(lats).min().getAsDouble();
+            maxLat = Arrays.stream(lats).max().getAsDouble();
+            minLon = Arrays.stream(lons).min().getAsDouble();
+            maxLon = Arrays.stream(lons).max().getAsDouble();
+        }
+
+        // Even-odd rule: count polygon edges crossed by a ray from the point
+        // towards increasing longitude
+        boolean contains(double lat, double lon) {
+            if (lat < minLat || lat > maxLat || lon < minLon || lon > maxLon)
+                return false;
+            boolean inside = false;
+            for (int i = 0, j = lats.length - 1; i < lats.length; j = i++) {
+                if ((lats[i] > lat) != (lats[j] > lat)
+                        && lon < (lons[j] - lons[i]) * (lat - lats[i]) / (lats[j] - lats[i]) + lons[i])
+                    inside = !inside;
+            }
+            return inside;
+        }
+
+        double centerLat() {
+            return (minLat + maxLat) / 2;
+        }
+
+        double centerLon() {
+            return (minLon + maxLon) / 2;
+        }
+    }
+
+    private static class Node {
+        double minLat = Double.POSITIVE_INFINITY;
+        double maxLat = Double.NEGATIVE_INFINITY;
+        double minLon = Double.POSITIVE_INFINITY;
+        double maxLon = Double.NEGATIVE_INFINITY;
+        List<Node> children;
+        List<Zone> zones;
+
+        boolean contains(double lat, double lon) {
+            return lat >= minLat && lat <= maxLat && lon >= minLon && lon <= maxLon;
+        }
+
+        void include(double loLat, double hiLat, double loLon, double hiLon) {
+            minLat = Math.min(minLat, loLat);
+            maxLat = Math.max(maxLat, hiLat);
+            minLon = Math.min(minLon, loLon);
+            maxLon = Math.max(maxLon, hiLon);
+        }
+    }
+
+    private static class Snapshot {
+        final Set<Long> zoned = new HashSet<>();
+        final Node root;
+
+        Snapshot(Collection<Zone> all) {
+            List<Node> level = new ArrayList<>();
+            for (List<Zone> group : strPack(new ArrayList<>(all), Zone::centerLon, Zone::centerLat)) {
+                Node leaf = new Node();
+                leaf.zones = group;
+                for (Zone z : group) {
+                    leaf.include(z.minLat, z.maxLat, z.minLon, z.maxLon);
+                    zoned.add(z.restaurantId);
+                }
+                level.add(leaf);
+            }
+            while (level.size() > 1) {
+                List<Node> parents = new ArrayList<>();
+                List<List<Node>> groups = strPack(level, n -> (n.minLon + n.maxLon) / 2,
+                        n -> (n.minLat + n.maxLat) / 2);
+                for (List<Node> group : groups) {
+                    Node parent = new Node();
+                    parent.children = group;
+                    for (Node n : group)
+                        parent.include(n.minLat, n.maxLat, n.minLon, n.maxLon);
+                    parents.add(parent);
+                }
+                level = parents;
+            }
+            root = level.isEmpty() ? null : level.get(0);
+        }
+
+        // Sort-Tile-Recursive grouping: sort by x, cut into sqrt(#groups)
+        // vertical slices, sort each slice by y and cut it into groups
+        private static <T> List<List<T>> strPack(List<T> items, ToDoubleFunction<T> x, ToDoubleFunction<T> y) {
+            List<List<T>> groups = new ArrayList<>();
+            if (items.isEmpty())
+                return groups;
+            int groupCount = (items.size() + NODE_CAPACITY - 1) / NODE_CAPACITY;
+            int slices = (int) Math.ceil(Math.sqrt(groupCount));
+            int sliceSize = slices * NODE_CAPACITY;
+            items.sort(Comparator.comparingDouble(x));
+            for (int s = 0; s < items.size(); s += sliceSize) {
+                List<T> slice = new ArrayList<>(items.subList(s, Math.min(items.size(), s + sliceSize)));
+                slice.sort(Comparator.comparingDouble(y));
+                for (int g = 0; g < slice.size(); g += NODE_CAPACITY)
+                    groups.add(new ArrayList<>(slice.subList(g, Math.min(slice.size(), g + NODE_CAPACITY))));
+            }
+            return groups;
+        }
+    }
+}
@@ -0,0 +1,402 @@
+package com.tka.feasto.index;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.springframework.stereotype.Component;
+
+import com.tka.feasto.dto.MenuItemDTO;
+import com.tka.feasto.entity.Restaurant;
+import com.tka.feasto.util.TopKSelector;
+
+/**
+ * In-memory inverted index over menu items of active restaurants.
+ *
+ * Dish names, descriptions and categories are tokenized into words; each word
+ * maps to the ids of the items containing it. A search intersects the query
+ * words' postings, applies the category / cuisine / price / availability
+ * filters and an optional set of nearby restaurants, and returns one ranked
+ * page plus facet counts. Each facet is counted over the items that pass every
+ * other filter, so the counts show what picking that value would return.
+ */
+@Component
+public class DishSearchIndex {
+
+    public static final String FACET_CUISINE = "cuisine";
+    public static final String FACET_CATEGORY = "category";
+    public static final String FACET_PRICE = "price";
+    public static final String FACET_AVAILABILITY = "availability";
+
+    // Upper bounds of the price bands; the last band is open-ended
+    private static final double[] PRICE_BANDS = { 150, 300, 500 };
+
+    // Per-field weight of a query word found in that field
+    private static final int NAME_WEIGHT = 3;
+    private static final int CATEGORY_WEIGHT = 2;
+    private static final int DESCRIPTION_WEIGHT = 1;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<Long, Doc> docs = new HashMap<>();
+    // word -> menu item ids
+    private final Map<String, Set<Long>> postings = new HashMap<>();
+    // active restaurants: id -> (name, cuisine)
+    private final Map<Long, RestaurantInfo> restaurants = new HashMap<>();
+
+    private volatile boolean ready;
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    // Replace the whole index content; items of restaurants not in the list are skipped
+    public void rebuild(Collection<Restaurant> activeRestaurants, Collection<MenuItemDTO> items) {
+        lock.writeLock().lock();
+        try {
+            docs.clear();
+            postings.clear();
+            restaurants.clear();
+            for (Restaurant r : activeRestaurants)
+                upsertRestaurantLocked(r);
+            for (MenuItemDTO item : items)
+                upsertLocked(item);
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void upsertRestaurant(Restaurant restaurant) {
+        if (restaurant == null || restaurant.getRestaurantId() == null)
+            return;
+        lock.writeLock().lock();
+        try {
+            upsertRestaurantLocked(restaurant);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Add or refresh one menu item (the DTO is kept as is; callers must not modify it)
+    public void upsert(MenuItemDTO item) {
+        if (item == null || item.getMenuItemId() == null)
+            return;
+        lock.writeLock().lock();
+        try {
+            upsertLocked(item);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long menuItemId) {
+        if (menuItemId == null)
+            return;
+        lock.writeLock().lock();
+        try {
+            removeLocked(menuItemId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Items matching every word of {@code query} (none when it is blank, rather
+     * than a scan of the whole catalog) and the filter, best first: weighted word matches, then distance when
+     * {@code filter.distancesKm} is set, then item id.
+     */
+    public Result search(String query, Filter filter, int offset, int limit) {
+        List<String> words = new ArrayList<>(tokenize(query));
+        lock.readLock().lock();
+        try {
+            Collection<Long> matched = matchAll(words);
+            Map<String, Map<String, Long>> facets = new LinkedHashMap<>();
+            for (String facet : new String[] { FACET_CUISINE, FACET_CATEGORY, FACET_PRICE, FACET_AVAILABILITY })
+                facets.put(facet, new TreeMap<>());
+
+            List<Doc> hits = new ArrayList<>();
+            for (Long id : matched) {
+                Doc doc = docs.get(id);
+                if (doc == null)
+                    continue;
+                RestaurantInfo restaurant = restaurants.get(doc.item.getRestaurantId());
+                if (restaurant == null)
+                    continue;
+                Double distance = null;
+                if (filter.distancesKm != null) {
+                    distance = filter.distancesKm.get(doc.item.getRestaurantId());
+                    if (distance == null)
+                        continue; // not nearby: out of every count
+                }
+                String cuisine = restaurant.cuisine;
+                String category = doc.category;
+                String band = priceBand(doc.item.getPrice());
+                String availability = Boolean.TRUE.equals(doc.item.getIsAvailable()) ? "available" : "unavailable";
+                boolean cuisineOk = filter.cuisine == null || filter.cuisine.equals(cuisine);
+                boolean categoryOk = filter.category == null || filter.category.equals(category);
+                boolean priceOk = priceMatches(doc.item.getPrice(), filter);
+                boolean availableOk = !filter.availableOnly || "available".equals(availability);
+
+                if (categoryOk && priceOk && availableOk && cuisine != null)
+                    increment(facets.get(FACET_CUISINE), cuisine);
+                if (cuisineOk && priceOk && availableOk && category != null)
+                    increment(facets.get(FACET_CATEGORY), category);
+                if (cuisineOk && categoryOk && availableOk && band != null)
+                    increment(facets.get(FACET_PRICE), band);
+                if (cuisineOk && categoryOk && priceOk)
+                    increment(facets.get(FACET_AVAILABILITY), availability);
+                if (cuisineOk && categoryOk && priceOk && availableOk)
+                    hits.add(doc);
+            }
+
+            int start = Math.max(0, offset);
+            List<Hit> page = new ArrayList<>();
+            if (start < hits.size() && limit > 0) {
+                TopKSelector top = new TopKSelector(Math.min(hits.size(), start + limit));
+                for (int i = 0; i < hits.size(); i++) {
+                    Doc doc = hits.get(i);
+                    double distance = filter.distancesKm != null ? filter.distancesKm.get(doc.item.getRestaurantId())
+                            : 0.0;
+                    // score dominates; distance (< 20,000 km) only orders equal scores
+                    top.offer(i, -score(doc, words) * 100_000.0 + distance, doc.item.getMenuItemId());
+                }
+                int[] ranked = top.drainSorted();
+                for (int i = start; i < ranked.length; i++) {
+                    Doc doc = hits.get(ranked[i]);
+                    RestaurantInfo restaurant = restaurants.get(doc.item.getRestaurantId());
+                    page.add(new Hit(doc.item, restaurant.name, restaurant.cuisineType,
+                            filter.distancesKm != null ? filter.distancesKm.get(doc.item.getRestaurantId()) : null));
+                }
+            }
+            return new Result(page, hits.size(), facets);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Ids containing every word, walking the rarest posting list first
+    private Collection<Long> matchAll(List<String> words) {
+        if (words.isEmpty())
+            return new ArrayList<>();
+        List<Set<Long>> lists = new ArrayList<>();
+        for (String word : words) {
+            Set<Long> ids = postings.get(word);
+            if (ids == null)
+                return new ArrayList<>();
+            lists.add(ids);
+        }
+        lists.sort((a, b) -> Integer.compare(a.size(), b.size()));
+        List<Long> out = new ArrayList<>();
+        outer: for (Long id : lists.get(0)) {
+            for (int i = 1; i < lists.size(); i++) {
+                if (!lists.get(i).contains(id))
+                    continue outer;
+            }
+            out.add(id);
+        }
+        return out;
+    }
+
+    private static int score(Doc doc, List<String> words) {
+        int score = 0;
+        for (String word : words) {
+            if (doc.nameWords.contains(word))
+                score += NAME_WEIGHT;
+            if (doc.categoryWords.contains(word))
+                score += CATEGORY_WEIGHT;
+            if (doc.descriptionWords.contains(word))
+                score += DESCRIPTION_WEIGHT;
+        }
+        return score;
+    }
+
+    private void upsertRestaurantLocked(Restaurant r) {
+        if (!Boolean.TRUE.equals(r.getIsActive())) {
+            restaurants.remove(r.getRestaurantId()); // its items stay indexed but never match
+            return;
+        }
+        restaurants.put(r.getRestaurantId(),
+                new RestaurantInfo(r.getName(), r.getCuisineType(), normalizeValue(r.getCuisineType())));
+    }
+
+    private void upsertLocked(MenuItemDTO item) {
+        removeLocked(item.getMenuItemId());
+        Doc doc = new Doc(item);
+        docs.put(item.getMenuItemId(), doc);
+        for (String word : doc.allWords())
+            postings.computeIfAbsent(word, k -> new HashSet<>()).add(item.getMenuItemId());
+    }
+
+    private void removeLocked(Long menuItemId) {
+        Doc old = docs.remove(menuItemId);
+        if (old == null)
+            return;
+        for (String word : old.allWords()) {
+            Set<Long> ids = postings.get(word);
+            if (ids != null && ids.remove(menuItemId) && ids.isEmpty())
+                postings.remove(word);
+        }
+    }
+
+    private static boolean priceMatches(Double price, Filter filter) {
+        if (filter.minPrice == null && filter.maxPrice == null)
+            return true;
+        if (price == null)
+            return false;
+        return (filter.minPrice == null || price >= filter.minPrice)
+                && (filter.maxPrice == null || price <= filter.maxPrice);
+    }
+
+    private static String priceBand(Double price) {
+        if (price == null)
+            return null;
+        double lower = 0;
+        for (double upper : PRICE_BANDS) {
+            if (price < upper)
+                return (long) lower + "-" + (long) upper;
+            lower = upper;
+        }
+        return (long) lower + "+";
+    }
+
+    private static void increment(Map<String, Long> counts, String key) {
+        counts.merge(key, 1L, Long::sum);
+    }
+
+    // Lower-cased words of letters/digits
+    public static Set<String> tokenize(String text) {
+        Set<String> words = new LinkedHashSet<>();
+        if (text == null)
+            return words;
+        for (String word : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{Nd}]+")) {
+            if (!word.isEmpty())
+                words.add(word);
+        }
+        return words;
+    }
+
+    // Facet values (cuisine, category) are compared lower-cased and trimmed
+    public static String normalizeValue(String value) {
+        return value == null || value.isBlank() ? null : value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /** Search filters; null fields don't filter. */
+    public static class Filter {
+        String cuisine;
+        String category;
+        Double minPrice;
+        Double maxPrice;
+        boolean availableOnly;
+        // restaurantId -> distance for nearby search; null searches everywhere
+        Map<Long, Double> distancesKm;
+
+        public Filter(String cuisine, String category, Double minPrice, Double maxPrice, boolean availableOnly,
+                Map<Long, Double> distancesKm) {
+            this.cuisine = normalizeValue(cuisine);
+            this.category = normalizeValue(category);
+            this.minPrice = minPrice;
+            this.maxPrice = maxPrice;
+            this.availableOnly = availableOnly;
+            this.distancesKm = distancesKm;
+        }
+    }
+
+    public static class Hit {
+        private final MenuItemDTO item;
+        private final String restaurantName;
+        private final String cuisine;
+        private final Double distanceKm;
+
+        Hit(MenuItemDTO item, String restaurantName, String cuisine, Double distanceKm) {
+            this.item = item;
+            this.restaurantName = restaurantName;
+            this.cuisine = cuisine;
+            this.distanceKm = distanceKm;
+        }
+
+        public MenuItemDTO getItem() {
+            return item;
+        }
+
+        public String getRestaurantName() {
+            return restaurantName;
+        }
+
+        public String getCuisine() {
+            return cuisine;
+        }
+
+        public Double getDistanceKm() {
+            return distanceKm;
+        }
+    }
+
+    public static class Result {
+        private final List<Hit> hits;
+        private final int total;
+        private final Map<String, Map<String, Long>> facets;
+
+        Result(List<Hit> hits, int total, Map<String, Map<String, Long>> facets) {
+            this.hits = hits;
+            this.total = total;
+            this.facets = facets;
+        }
+
+        public List<Hit> getHits() {
+            return hits;
+        }
+
+        public int getTotal() {
+            return total;
+        }
+
+        public Map<String, Map<String, Long>> getFacets() {
+            return facets;
+        }
+    }
+
+    private static class RestaurantInfo {
+        final String name;
+        final String cuisineType; // as entered, for display
+        final String cuisine; // normalized, for filters and facets
+
+        RestaurantInfo(String name, String cuisineType, String cuisine) {
+            this.name = name;
+            this.cuisineType = cuisineType;
+            this.cuisine = cuisine;
+        }
+    }
+
+    private static class Doc {
+        final MenuItemDTO item;
+        final String category;
+        final Set<String> nameWords;
+        final Set<String> descriptionWords;
+        final Set<String> categoryWords;
+
+        Doc(MenuItemDTO item) {
+            this.item = item;
+            this.category = normalizeValue(item.getCategory());
+            this.nameWords = tokenize(item.getName());
+            this.descriptionWords = tokenize(item.getDescription());
+            this.categoryWords = tokenize(item.getCategory());
+        }
+
+        Set<String> allWords() {
+            Set<String> all = new HashSet<>(nameWords);
+            all.addAll(descriptionWords);
+            all.addAll(categoryWords);
+            return all;
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package com.tka.feasto.index;
+
+import java.io.Serializable;
+
+/**
+ * Restaurants around a search point held as parallel primitive arrays
+ * (id, lat, lon, rating). Cached per geohash cell and re-ranked for each user's
+ * exact position, so it must stay small and immutable.
+ */
+public class NearbyCandidates implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final long[] restaurantIds;
+    private final double[] latitudes;
+    private final double[] longitudes;
+    private final double[] ratings;
+
+    public NearbyCandidates(long[] restaurantIds, double[] latitudes, double[] longitudes, double[] ratings) {
+        this.restaurantIds = restaurantIds;
+        this.latitudes = latitudes;
+        this.longitudes = longitudes;
+        this.ratings = ratings;
+    }
+
+    public int size() {
+        return restaurantIds.length;
+    }
+
+    public long[] getRestaurantIds() {
+        return restaurantIds;
+    }
+
+    public double[] getLatitudes() {
+        return latitudes;
+    }
+
+    public double[] getLongitudes() {
+        return longitudes;
+    }
+
+    public double[] getRatings() {
+        return ratings;
+    }
+}
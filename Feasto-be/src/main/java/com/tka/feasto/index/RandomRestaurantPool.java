@@ -0,0 +1,129 @@
+package com.tka.feasto.index;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.tka.feasto.entity.Restaurant;
+import com.tka.feasto.repository.RestaurantRepository;
+
+/**
+ * In-memory pool of active restaurant ids (overall and per city) for
+ * {@code /restaurants/random}.
+ *
+ * The pool is an immutable snapshot reloaded every
+ * feasto.random.pool.refreshMs with one id/city query; sampling is a partial
+ * Fisher–Yates shuffle over a sparse swap map, O(k) per request with no copy
+ * of the pool and no database work.
+ */
+@Component
+public class RandomRestaurantPool {
+
+    private static final Logger log = LoggerFactory.getLogger(RandomRestaurantPool.class);
+
+    @Autowired
+    private RestaurantRepository restaurantRepository;
+
+    private volatile Snapshot snapshot;
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${feasto.random.pool.refreshMs:300000}",
+            initialDelayString = "${feasto.random.pool.refreshMs:300000}")
+    public synchronized void refresh() {
+        List<Object[]> rows = restaurantRepository.findActiveIdsAndCities();
+        long[] ids = new long[rows.size()];
+        Map<String, List<Long>> byCity = new HashMap<>();
+        for (int i = 0; i < rows.size(); i++) {
+            ids[i] = ((Number) rows.get(i)[0]).longValue();
+            String city = cityKey((String) rows.get(i)[1]);
+            if (city != null)
+                byCity.computeIfAbsent(city, c -> new ArrayList<>()).add(ids[i]);
+        }
+        Map<String, long[]> cities = new HashMap<>();
+        byCity.forEach((city, list) -> cities.put(city, list.stream().mapToLong(Long::longValue).toArray()));
+        snapshot = new Snapshot(ids, cities);
+        log.debug("Random restaurant pool loaded: {} restaurants in {} cities", ids.length, cities.size());
+    }
+
+    // Make a newly registered restaurant eligible before the next refresh
+    public synchronized void add(Restaurant restaurant) {
+        Snapshot current = snapshot;
+        if (current == null || restaurant.getRestaurantId() == null || !Boolean.TRUE.equals(restaurant.getIsActive()))
+            return;
+        Map<String, long[]> cities = new HashMap<>(current.byCity);
+        String city = restaurant.getAddress() != null ? cityKey(restaurant.getAddress().getCity()) : null;
+        if (city != null)
+            cities.put(city, append(cities.get(city), restaurant.getRestaurantId()));
+        snapshot = new Snapshot(append(current.ids, restaurant.getRestaurantId()), cities);
+    }
+
+    /**
+     * Up to {@code limit} distinct ids drawn uniformly from the active
+     * restaurants, or from one city's when {@code city} is given. Loads the pool
+     * on first use if the startup load hasn't run yet.
+     */
+    public List<Long> sample(int limit, String city) {
+        Snapshot current = snapshot;
+        if (current == null) {
+            synchronized (this) {
+                if (snapshot == null)
+                    refresh();
+                current = snapshot;
+            }
+        }
+        long[] pool = city == null || city.isBlank() ? current.ids : current.byCity.get(cityKey(city));
+        if (pool == null || limit <= 0)
+            return new ArrayList<>();
+        int n = pool.length;
+        int k = Math.min(limit, n);
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        // slot -> id for the slots swapped so far; every other slot still holds pool[slot]
+        Map<Integer, Long> swapped = new HashMap<>(k * 2);
+        List<Long> picked = new ArrayList<>(k);
+        for (int i = 0; i < k; i++) {
+            int j = random.nextInt(i, n);
+            Long atJ = swapped.getOrDefault(j, pool[j]);
+            swapped.put(j, swapped.getOrDefault(i, pool[i]));
+            picked.add(atJ);
+        }
+        return picked;
+    }
+
+    private static String cityKey(String city) {
+        return city == null || city.isBlank() ? null : city.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static long[] append(long[] ids, long id) {
+        if (ids == null)
+            return new long[] { id };
+        for (long existing : ids) {
+            if (existing == id)
+                return ids;
+        }
+        long[] grown = Arrays.copyOf(ids, ids.length + 1);
+        grown[ids.length] = id;
+        return grown;
+    }
+
+    private static class Snapshot {
+        final long[] ids;
+        final Map<String, long[]> byCity;
+
+        Snapshot(long[] ids, Map<String, long[]> byCity) {
+            this.ids = ids;
+            this.byCity = byCity;
+        }
+    }
+}
@@ -0,0 +1,282 @@
+package com.tka.feasto.index;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.tka.feasto.entity.Restaurant;
+import com.tka.feasto.repository.RestaurantRepository;
+import com.tka.feasto.util.TopKSelector;
+
+/**
+ * Bitmap index of restaurant browse attributes.
+ *
+ * Every restaurant gets a dense ordinal; each attribute value (cuisine, city,
+ * active) has a bitmap over the ordinals, and ratings are range-encoded as one
+ * "rating >= t" bitmap per half star. A browse filter is then a few bitmap
+ * ORs (values of one attribute) and ANDs (across attributes) before ranking
+ * only the matching ordinals for the requested page.
+ *
+ * Registrations are applied as they happen; the whole index is reloaded from
+ * one projection query every feasto.browse.refreshMs to pick up rating and
+ * status changes made elsewhere. Upserts that land while that query runs are
+ * replayed on top of the reloaded snapshot.
+ */
+@Component
+public class RestaurantFilterIndex {
+
+    private static final int RATING_STEPS = 10; // half stars, 0.0 .. 5.0
+
+    @Autowired
+    private RestaurantRepository restaurantRepository;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<Long, Integer> ordinalById = new HashMap<>();
+    private long[] ids = new long[256];
+    private double[] ratings = new double[256];
+    private String[] cuisineOf = new String[256];
+    private String[] cityOf = new String[256];
+    private int size;
+
+    private final BitSet active = new BitSet();
+    private final Map<String, BitSet> byCuisine = new HashMap<>();
+    private final Map<String, BitSet> byCity = new HashMap<>();
+    // ratingAtLeast[k] = ordinals with rating >= k / 2
+    private final BitSet[] ratingAtLeast = new BitSet[RATING_STEPS + 1];
+
+    private volatile boolean ready;
+
+    // Upserts seen while a refresh's query runs, as projection rows; replayed
+    // over the reloaded snapshot so they aren't lost until the next refresh
+    private List<Object[]> pendingUpserts;
+
+    public RestaurantFilterIndex() {
+        for (int k = 0; k <= RATING_STEPS; k++)
+            ratingAtLeast[k] = new BitSet();
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${feasto.browse.refreshMs:600000}",
+            initialDelayString = "${feasto.browse.refreshMs:600000}")
+    public synchronized void refresh() {
+        lock.writeLock().lock();
+        try {
+            pendingUpserts = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        List<Object[]> rows;
+        try {
+            rows = restaurantRepository.findBrowseAttributes();
+        } catch (RuntimeException ex) {
+            lock.writeLock().lock();
+            try {
+                pendingUpserts = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            throw ex;
+        }
+        lock.writeLock().lock();
+        try {
+            ordinalById.clear();
+            size = 0;
+            active.clear();
+            byCuisine.clear();
+            byCity.clear();
+            for (BitSet bits : ratingAtLeast)
+                bits.clear();
+            for (Object[] row : rows)
+                upsertLocked(row);
+            for (Object[] row : pendingUpserts)
+                upsertLocked(row);
+            pendingUpserts = null;
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Apply one restaurant's current attributes (new registration, rating or status change)
+    public void upsert(Restaurant r) {
+        if (r == null || r.getRestaurantId() == null)
+            return;
+        Object[] row = { r.getRestaurantId(), r.getCuisineType(),
+                r.getAddress() != null ? r.getAddress().getCity() : null, r.getRating(), r.getIsActive() };
+        lock.writeLock().lock();
+        try {
+            upsertLocked(row);
+            if (pendingUpserts != null)
+                pendingUpserts.add(row);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Restaurant ids matching the filter, best rated first (ties by id), from
+     * {@code offset}; {@link Page#getTotal()} is the full match count.
+     */
+    public Page query(Filter filter, int offset, int limit) {
+        lock.readLock().lock();
+        try {
+            BitSet match = new BitSet(size);
+            match.set(0, size);
+            if (filter.activeOnly)
+                match.and(active);
+            if (filter.cuisines != null && !filter.cuisines.isEmpty())
+                match.and(union(byCuisine, filter.cuisines));
+            if (filter.cities != null && !filter.cities.isEmpty())
+                match.and(union(byCity, filter.cities));
+            if (filter.minRating != null && filter.minRating > 0)
+                applyMinRating(match, filter.minRating);
+
+            int total = match.cardinality();
+            int start = Math.max(0, offset);
+            if (start >= total || limit <= 0)
+                return new Page(new long[0], total);
+            TopKSelector top = new TopKSelector(Math.min(total, start + limit));
+            for (int o = match.nextSetBit(0); o >= 0; o = match.nextSetBit(o + 1))
+                top.offer(o, -ratings[o], ids[o]);
+            int[] ranked = top.drainSorted();
+            long[] page = new long[ranked.length - start];
+            for (int i = start; i < ranked.length; i++)
+                page[i - start] = ids[ranked[i]];
+            return new Page(page, total);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // AND with the half-star bitmap at or below minRating, then drop the few
+    // ordinals in that half-star bucket that are still below it
+    private void applyMinRating(BitSet match, double minRating) {
+        int k = Math.min(RATING_STEPS, (int) Math.floor(minRating * 2));
+        match.and(ratingAtLeast[k]);
+        if (minRating * 2 > k) {
+            BitSet boundary = (BitSet) match.clone();
+            if (k < RATING_STEPS)
+                boundary.andNot(ratingAtLeast[k + 1]);
+            for (int o = boundary.nextSetBit(0); o >= 0; o = boundary.nextSetBit(o + 1)) {
+                if (ratings[o] < minRating)
+                    match.clear(o);
+            }
+        }
+    }
+
+    private static BitSet union(Map<String, BitSet> bitmaps, Collection<String> values) {
+        BitSet out = new BitSet();
+        for (String value : values) {
+            BitSet bits = bitmaps.get(key(value));
+            if (bits != null)
+                out.or(bits);
+        }
+        return out;
+    }
+
+    // (restaurantId, cuisineType, city, rating, isActive)
+    private void upsertLocked(Object[] row) {
+        upsertLocked(((Number) row[0]).longValue(), (String) row[1], (String) row[2],
+                row[3] != null ? ((Number) row[3]).doubleValue() : 0.0, Boolean.TRUE.equals(row[4]));
+    }
+
+    private void upsertLocked(long id, String cuisine, String city, double rating, boolean isActive) {
+        Integer existing = ordinalById.get(id);
+        int o;
+        if (existing == null) {
+            o = size++;
+            ensureCapacity(size);
+            ordinalById.put(id, o);
+            ids[o] = id;
+        } else {
+            o = existing;
+            clearValue(byCuisine, cuisineOf[o], o);
+            clearValue(byCity, cityOf[o], o);
+        }
+        cuisineOf[o] = key(cuisine);
+        cityOf[o] = key(city);
+        ratings[o] = rating;
+        active.set(o, isActive);
+        if (cuisineOf[o] != null)
+            byCuisine.computeIfAbsent(cuisineOf[o], v -> new BitSet()).set(o);
+        if (cityOf[o] != null)
+            byCity.computeIfAbsent(cityOf[o], v -> new BitSet()).set(o);
+        for (int k = 0; k <= RATING_STEPS; k++)
+            ratingAtLeast[k].set(o, rating >= k / 2.0);
+    }
+
+    private static void clearValue(Map<String, BitSet> bitmaps, String value, int ordinal) {
+        if (value == null)
+            return;
+        BitSet bits = bitmaps.get(value);
+        if (bits != null) {
+            bits.clear(ordinal);
+            if (bits.isEmpty())
+                bitmaps.remove(value);
+        }
+    }
+
+    private void ensureCapacity(int needed) {
+        if (needed <= ids.length)
+            return;
+        int cap = Math.max(needed, ids.length * 2);
+        ids = Arrays.copyOf(ids, cap);
+        ratings = Arrays.copyOf(ratings, cap);
+        cuisineOf = Arrays.copyOf(cuisineOf, cap);
+        cityOf = Arrays.copyOf(cityOf, cap);
+    }
+
+    private static String key(String value) {
+        return value == null || value.isBlank() ? null : value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /** Browse filter: values within cuisines/cities are ORed, attributes ANDed. */
+    public static class Filter {
+        final List<String> cuisines;
+        final List<String> cities;
+        final Double minRating;
+        final boolean activeOnly;
+
+        public Filter(List<String> cuisines, List<String> cities, Double minRating, boolean activeOnly) {
+            this.cuisines = cuisines;
+            this.cities = cities;
+            this.minRating = minRating;
+            this.activeOnly = activeOnly;
+        }
+    }
+
+    public static class Page {
+        private final long[] restaurantIds;
+        private final int total;
+
+        Page(long[] restaurantIds, int total) {
+            this.restaurantIds = restaurantIds;
+            this.total = total;
+        }
+
+        public long[] getRestaurantIds() {
+            return restaurantIds;
+        }
+
+        public int getTotal() {
+            return total;
+        }
+    }
+}
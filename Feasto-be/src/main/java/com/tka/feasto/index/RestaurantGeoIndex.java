@@ -0,0 +1,413 @@
+package com.tka.feasto.index;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.tka.feasto.entity.Restaurant;
+import com.tka.feasto.util.DistanceUtil;
+import com.tka.feasto.util.TopKSelector;
+
+/**
+ * In-memory uniform-grid index of active restaurant coordinates.
+ *
+ * Restaurants live in parallel primitive arrays (id, lat, lon, rating) and
+ * each grid cell keeps the array slots that fall inside it. Nearby queries walk
+ * the cells ring by ring outward from the origin, rank the hits with a bounded
+ * heap and return only the ids of the requested page, so callers load just
+ * those entities from the database.
+ */
+@Component
+public class RestaurantGeoIndex {
+
+    private static final double KM_PER_DEG_LAT = 111.0;
+    private static final double KM_PER_DEG_LON_AT_EQUATOR = 111.320;
+    private static final double DEFAULT_RADIUS_KM = 50.0;
+    private static final int INITIAL_CAPACITY = 256;
+
+    @Value("${feasto.geoindex.cellSizeKm:2.0}")
+    private double cellSizeKm;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // restaurantId -> array slot
+    private final Map<Long, Integer> slotById = new HashMap<>();
+    // packed (row, col) cell key -> slots in that cell
+    private final Map<Long, IntBag> cells = new HashMap<>();
+
+    private long[] ids = new long[INITIAL_CAPACITY];
+    private double[] lats = new double[INITIAL_CAPACITY];
+    private double[] lons = new double[INITIAL_CAPACITY];
+    private double[] ratings = new double[INITIAL_CAPACITY];
+    private long[] cellKeys = new long[INITIAL_CAPACITY];
+    private int size;
+
+    private volatile boolean ready;
+
+    // True once the index has been loaded; until then callers should use the DB
+    public boolean isReady() {
+        return ready;
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return size;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Replace the whole index content with the given restaurants
+    public void rebuild(Collection<Restaurant> restaurants) {
+        lock.writeLock().lock();
+        try {
+            slotById.clear();
+            cells.clear();
+            size = 0;
+            for (Restaurant r : restaurants) {
+                upsertLocked(r);
+            }
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Add or refresh a restaurant; inactive or unlocated restaurants are dropped
+    public void upsert(Restaurant restaurant) {
+        if (restaurant == null || restaurant.getRestaurantId() == null)
+            return;
+        lock.writeLock().lock();
+        try {
+            upsertLocked(restaurant);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long restaurantId) {
+        if (restaurantId == null)
+            return;
+        lock.writeLock().lock();
+        try {
+            removeLocked(restaurantId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns one page of restaurants within radiusKm of (lat, lon). Sort is
+     * "distance" (nearest first) or anything else for rating desc, matching the
+     * repository query. Ties are broken by restaurant id.
+     */
+    public Hits query(double lat, double lon, double radiusKm, String sort, int offset, int limit) {
+        double radius = radiusKm > 0 ? radiusKm : DEFAULT_RADIUS_KM;
+        boolean byDistance = "distance".equals(sort);
+        lock.readLock().lock();
+        try {
+            HitList hits = collect(lat, lon, radius);
+            int start = Math.max(0, offset);
+            if (start >= hits.count || limit <= 0)
+                return new Hits(new long[0], new double[0], hits.count);
+
+            TopKSelector top = new TopKSelector(Math.min(hits.count, start + limit));
+            for (int h = 0; h < hits.count; h++) {
+                int slot = hits.slots[h];
+                top.offer(h, byDistance ? hits.distances[h] : -ratings[slot], ids[slot]);
+            }
+            return toHits(hits, top.drainSorted(), start, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Keyset variant for infinite scroll: the next {@code limit} restaurants
+     * ordered by (distance, id) strictly after the given cursor.
+     */
+    public Hits queryAfter(double lat, double lon, double radiusKm, double afterDistanceKm,
+            long afterRestaurantId, int limit) {
+        double radius = radiusKm > 0 ? radiusKm : DEFAULT_RADIUS_KM;
+        lock.readLock().lock();
+        try {
+            HitList hits = collect(lat, lon, radius);
+            TopKSelector top = new TopKSelector(Math.min(hits.count, Math.max(0, limit)));
+            for (int h = 0; h < hits.count; h++) {
+                double d = hits.distances[h];
+                long id = ids[hits.slots[h]];
+                if (d < afterDistanceKm || (d == afterDistanceKm && id <= afterRestaurantId))
+                    continue;
+                top.offer(h, d, id);
+            }
+            return toHits(hits, top.drainSorted(), 0, limit);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // All restaurants within radiusKm of (lat, lon), unranked
+    public NearbyCandidates candidates(double lat, double lon, double radiusKm) {
+        double radius = radiusKm > 0 ? radiusKm : DEFAULT_RADIUS_KM;
+        lock.readLock().lock();
+        try {
+            HitList hits = collect(lat, lon, radius);
+            long[] outIds = new long[hits.count];
+            double[] outLats = new double[hits.count];
+            double[] outLons = new double[hits.count];
+            double[] outRatings = new double[hits.count];
+            for (int h = 0; h < hits.count; h++) {
+                int slot = hits.slots[h];
+                outIds[h] = ids[slot];
+                outLats[h] = lats[slot];
+                outLons[h] = lons[slot];
+                outRatings[h] = ratings[slot];
+            }
+            return new NearbyCandidates(outIds, outLats, outLons, outRatings);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Every slot within the radius, walking cells outward from the origin
+    private HitList collect(double lat, double lon, double radiusKm) {
+        HitList hits = new HitList(Math.max(1, Math.min(size, 64)));
+        if (size == 0)
+            return hits;
+        for (IntBag bag : cellsAround(lat, lon, radiusKm)) {
+            for (int i = 0; i < bag.size; i++) {
+                int slot = bag.items[i];
+                double d = DistanceUtil.haversine(lat, lon, lats[slot], lons[slot]);
+                if (d <= radiusKm)
+                    hits.add(slot, d);
+            }
+        }
+        return hits;
+    }
+
+    private Hits toHits(HitList hits, int[] ranked, int start, int limit) {
+        int end = Math.min(ranked.length, start + limit);
+        int n = Math.max(0, end - start);
+        long[] pageIds = new long[n];
+        double[] pageDist = new double[n];
+        for (int i = 0; i < n; i++) {
+            int h = ranked[start + i];
+            pageIds[i] = ids[hits.slots[h]];
+            pageDist[i] = hits.distances[h];
+        }
+        return new Hits(pageIds, pageDist, hits.count);
+    }
+
+    // Cells overlapping the radius bounding box, nearest rings first
+    private List<IntBag> cellsAround(double lat, double lon, double radiusKm) {
+        double cellDeg = cellDeg();
+        double cosLat = Math.max(Math.cos(Math.toRadians(lat)), 0.01);
+        int rowSpan = (int) Math.ceil(radiusKm / KM_PER_DEG_LAT / cellDeg);
+        int colSpan = (int) Math.ceil(radiusKm / (KM_PER_DEG_LON_AT_EQUATOR * cosLat) / cellDeg);
+        int row0 = cellIndex(lat, cellDeg);
+        int col0 = cellIndex(lon, cellDeg);
+
+        List<IntBag> out = new ArrayList<>();
+        long boxCells = (2L * rowSpan + 1) * (2L * colSpan + 1);
+        if (boxCells > cells.size()) {
+            // Sparse index or huge radius: cheaper to filter the occupied cells
+            for (Map.Entry<Long, IntBag> e : cells.entrySet()) {
+                int row = (int) (e.getKey() >> 32);
+                int col = (int) (long) e.getKey();
+                if (Math.abs(row - row0) <= rowSpan && Math.abs(col - col0) <= colSpan)
+                    out.add(e.getValue());
+            }
+            return out;
+        }
+        int rings = Math.max(rowSpan, colSpan);
+        for (int ring = 0; ring <= rings; ring++) {
+            for (int dr = -ring; dr <= ring; dr++) {
+                if (Math.abs(dr) > rowSpan)
+                    continue;
+                boolean edgeRow = Math.abs(dr) == ring;
+                int step = edgeRow ? 1 : 2 * ring;
+                for (int dc = -ring; dc <= ring; dc += step) {
+                    if (Math.abs(dc) > colSpan)
+                        continue;
+                    IntBag bag = cells.get(cellKey(row0 + dr, col0 + dc));
+                    if (bag != null)
+                        out.add(bag);
+                }
+            }
+        }
+        return out;
+    }
+
+    private void upsertLocked(Restaurant r) {
+        Long id = r.getRestaurantId();
+        Double lat = r.getAddress() != null ? r.getAddress().getLatitude() : null;
+        Double lon = r.getAddress() != null ? r.getAddress().getLongitude() : null;
+        if (id == null)
+            return;
+        if (!Boolean.TRUE.equals(r.getIsActive()) || lat == null || lon == null) {
+            removeLocked(id);
+            return;
+        }
+        double cellDeg = cellDeg();
+        long key = cellKey(cellIndex(lat, cellDeg), cellIndex(lon, cellDeg));
+        Integer existing = slotById.get(id);
+        int slot;
+        if (existing == null) {
+            ensureCapacity(size + 1);
+            slot = size++;
+            slotById.put(id, slot);
+            cells.computeIfAbsent(key, k -> new IntBag()).add(slot);
+        } else {
+            slot = existing;
+            if (cellKeys[slot] != key) {
+                detachFromCell(slot);
+                cells.computeIfAbsent(key, k -> new IntBag()).add(slot);
+            }
+        }
+        ids[slot] = id;
+        lats[slot] = lat;
+        lons[slot] = lon;
+        ratings[slot] = r.getRating() != null ? r.getRating() : 0.0;
+        cellKeys[slot] = key;
+    }
+
+    private void removeLocked(Long id) {
+        Integer slotObj = slotById.remove(id);
+        if (slotObj == null)
+            return;
+        int slot = slotObj;
+        detachFromCell(slot);
+        int last = --size;
+        if (slot != last) {
+            // Move the last slot into the hole so arrays stay dense
+            ids[slot] = ids[last];
+            lats[slot] = lats[last];
+            lons[slot] = lons[last];
+            ratings[slot] = ratings[last];
+            cellKeys[slot] = cellKeys[last];
+            slotById.put(ids[slot], slot);
+            cells.get(cellKeys[slot]).replace(last, slot);
+        }
+    }
+
+    private void detachFromCell(int slot) {
+        IntBag bag = cells.get(cellKeys[slot]);
+        if (bag == null)
+            return;
+        bag.remove(slot);
+        if (bag.size == 0)
+            cells.remove(cellKeys[slot]);
+    }
+
+    private void ensureCapacity(int needed) {
+        if (needed <= ids.length)
+            return;
+        int cap = Math.max(needed, ids.length * 2);
+        ids = Arrays.copyOf(ids, cap);
+        lats = Arrays.copyOf(lats, cap);
+        lons = Arrays.copyOf(lons, cap);
+        ratings = Arrays.copyOf(ratings, cap);
+        cellKeys = Arrays.copyOf(cellKeys, cap);
+    }
+
+    private double cellDeg() {
+        return Math.max(cellSizeKm, 0.1) / KM_PER_DEG_LAT;
+    }
+
+    private static int cellIndex(double degrees, double cellDeg) {
+        return (int) Math.floor(degrees / cellDeg);
+    }
+
+    private static long cellKey(int row, int col) {
+        return ((long) row << 32) | (col & 0xffffffffL);
+    }
+
+    /** A page of index hits: restaurant ids with their distances, plus total matches. */
+    public static class Hits {
+        private final long[] restaurantIds;
+        private final double[] distancesKm;
+        private final long total;
+
+        public Hits(long[] restaurantIds, double[] distancesKm, long total) {
+            this.restaurantIds = restaurantIds;
+            this.distancesKm = distancesKm;
+            this.total = total;
+        }
+
+        public long[] getRestaurantIds() {
+            return restaurantIds;
+        }
+
+        public double[] getDistancesKm() {
+            return distancesKm;
+        }
+
+        public long getTotal() {
+            return total;
+        }
+
+        public int size() {
+            return restaurantIds.length;
+        }
+    }
+
+    // Matching slots and their distances, grown as cells are walked
+    private static class HitList {
+        int[] slots;
+        double[] distances;
+        int count;
+
+        HitList(int capacity) {
+            slots = new int[capacity];
+            distances = new double[capacity];
+        }
+
+        void add(int slot, double distance) {
+            if (count == slots.length) {
+                slots = Arrays.copyOf(slots, count * 2);
+                distances = Arrays.copyOf(distances, count * 2);
+            }
+            slots[count] = slot;
+            distances[count] = distance;
+            count++;
+        }
+    }
+
+    // Growable int list of slots with O(1) swap-removal
+    private static class IntBag {
+        int[] items = new int[4];
+        int size;
+
+        void add(int value) {
+            if (size == items.length)
+                items = Arrays.copyOf(items, size * 2);
+            items[size++] = value;
+        }
+
+        void remove(int value) {
+            for (int i = 0; i < size; i++) {
+                if (items[i] == value) {
+                    items[i] = items[--size];
+                    return;
+                }
+            }
+        }
+
+        void replace(int oldValue, int newValue) {
+            for (int i = 0; i < size; i++) {
+                if (items[i] == oldValue) {
+                    items[i] = newValue;
+                    return;
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package com.tka.feasto.index;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.springframework.stereotype.Component;
+
+import com.tka.feasto.entity.Restaurant;
+import com.tka.feasto.util.TopKSelector;
+
+/**
+ * In-memory trigram inverted index over active restaurant names.
+ *
+ * Each word of a lower-cased name is padded ("  word ") and split into
+ * trigrams; every trigram maps to the ids of the restaurants containing it.
+ * Fuzzy search asks for the restaurants sharing the most trigrams with the
+ * query and runs edit distance on that shortlist only, instead of on every
+ * active restaurant.
+ */
+@Component
+public class RestaurantNameIndex {
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // restaurantId -> normalized name
+    private final Map<Long, String> names = new HashMap<>();
+    // packed trigram -> restaurant ids
+    private final Map<Long, Set<Long>> postings = new HashMap<>();
+
+    private volatile boolean ready;
+
+    // True once the index has been loaded; until then callers should use the DB
+    public boolean isReady() {
+        return ready;
+    }
+
+    // Replace the whole index content with the given restaurants
+    public void rebuild(Collection<Restaurant> restaurants) {
+        lock.writeLock().lock();
+        try {
+            names.clear();
+            postings.clear();
+            for (Restaurant r : restaurants)
+                upsertLocked(r);
+            ready = true;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Add or refresh a restaurant; inactive or unnamed restaurants are dropped
+    public void upsert(Restaurant restaurant) {
+        if (restaurant == null || restaurant.getRestaurantId() == null)
+            return;
+        lock.writeLock().lock();
+        try {
+            upsertLocked(restaurant);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long restaurantId) {
+        if (restaurantId == null)
+            return;
+        lock.writeLock().lock();
+        try {
+            removeLocked(restaurantId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Up to {@code limit} restaurants sharing at least one trigram with the
+     * query, most shared trigrams first (ties by id).
+     */
+    public List<Match> shortlist(String query, int limit) {
+        Set<Long> grams = trigrams(normalize(query));
+        List<Match> out = new ArrayList<>();
+        if (grams.isEmpty() || limit <= 0)
+            return out;
+        lock.readLock().lock();
+        try {
+            Map<Long, int[]> overlap = new HashMap<>();
+            for (Long gram : grams) {
+                Set<Long> ids = postings.get(gram);
+                if (ids == null)
+                    continue;
+                for (Long id : ids)
+                    overlap.computeIfAbsent(id, k -> new int[1])[0]++;
+            }
+            if (overlap.isEmpty())
+                return out;
+            long[] ids = new long[overlap.size()];
+            TopKSelector top = new TopKSelector(Math.min(limit, ids.length));
+            int slot = 0;
+            for (Map.Entry<Long, int[]> e : overlap.entrySet()) {
+                ids[slot] = e.getKey();
+                top.offer(slot, -e.getValue()[0], ids[slot]);
+                slot++;
+            }
+            for (int s : top.drainSorted())
+                out.add(new Match(ids[s], names.get(ids[s])));
+            return out;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void upsertLocked(Restaurant r) {
+        Long id = r.getRestaurantId();
+        if (id == null)
+            return;
+        removeLocked(id);
+        String name = normalize(r.getName());
+        if (!Boolean.TRUE.equals(r.getIsActive()) || name.isEmpty())
+            return;
+        names.put(id, name);
+        for (Long gram : trigrams(name))
+            postings.computeIfAbsent(gram, k -> new HashSet<>()).add(id);
+    }
+
+    private void removeLocked(Long id) {
+        String old = names.remove(id);
+        if (old == null)
+            return;
+        for (Long gram : trigrams(old)) {
+            Set<Long> ids = postings.get(gram);
+            if (ids != null && ids.remove(id) && ids.isEmpty())
+                postings.remove(gram);
+        }
+    }
+
+    // Lower-case and collapse whitespace; the same form is used for scoring
+    public static String normalize(String name) {
+        return name == null ? "" : name.trim().toLowerCase(Locale.ROOT).replaceAll("\\s+", " ");
+    }
+
+    private static Set<Long> trigrams(String normalized) {
+        Set<Long> grams = new HashSet<>();
+        if (normalized.isEmpty())
+            return grams;
+        for (String word : normalized.split(" ")) {
+            String padded = "  " + word + " ";
+            for (int i = 0; i + 3 <= padded.length(); i++) {
+                grams.add(((long) padded.charAt(i) << 32) | ((long) padded.charAt(i + 1) << 16)
+                        | padded.charAt(i + 2));
+            }
+        }
+        return grams;
+    }
+
+    public static class Match {
+        private final long restaurantId;
+        private final String name;
+
+        public Match(long restaurantId, String name) {
+            this.restaurantId = restaurantId;
+            this.name = name;
+        }
+
+        public long getRestaurantId() {
+            return restaurantId;
+        }
+
+        // Normalized (lower-cased) name
+        public String getName() {
+            return name;
+        }
+    }
+}
@@ -0,0 +1,188 @@
+package com.tka.feasto.index;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.tka.feasto.dto.MapTileDTO;
+import com.tka.feasto.dto.TileClusterDTO;
+import com.tka.feasto.entity.Restaurant;
+import com.tka.feasto.util.TileMath;
+
+/**
+ * Linear quadtree of active restaurant coordinates for map tiles.
+ *
+ * Restaurants are kept sorted by the Z-order code of their finest-zoom tile,
+ * so every quadtree node at every zoom is one contiguous slice of the arrays.
+ * A z/x/y tile is split into 2^clusterBits x 2^clusterBits sub-cells; each
+ * non-empty sub-cell becomes one cluster whose count and centroid come from
+ * prefix sums and whose representative marker (best rating) comes from a
+ * sparse range-maximum table. Tile cost is a few binary searches per
+ * sub-cell, independent of how many restaurants the tile covers.
+ *
+ * The arrays form an immutable snapshot; upserts rebuild it from the point map.
+ */
+@Component
+public class RestaurantTileIndex {
+
+    @Value("${feasto.tiles.clusterBits:3}")
+    private int clusterBits;
+
+    private final Map<Long, Point> points = new HashMap<>();
+
+    private volatile Snapshot snapshot;
+
+    public boolean isReady() {
+        return snapshot != null;
+    }
+
+    public synchronized void rebuild(Collection<Restaurant> restaurants) {
+        points.clear();
+        for (Restaurant r : restaurants) {
+            Point p = toPoint(r);
+            if (p != null)
+                points.put(p.id, p);
+        }
+        snapshot = new Snapshot(points.values());
+    }
+
+    // Add, move or drop (inactive / unlocated) one restaurant
+    public synchronized void upsert(Restaurant restaurant) {
+        if (restaurant == null || restaurant.getRestaurantId() == null)
+            return;
+        Point p = toPoint(restaurant);
+        Point previous = p != null ? points.put(p.id, p) : points.remove(restaurant.getRestaurantId());
+        if (p != null || previous != null)
+            snapshot = new Snapshot(points.values());
+    }
+
+    public MapTileDTO tile(int z, int x, int y) {
+        Snapshot s = snapshot;
+        if (s == null)
+            return new MapTileDTO(z, x, y, 0, new ArrayList<>());
+        int bits = Math.max(0, Math.min(clusterBits, TileMath.MAX_ZOOM - z));
+        int cellShift = 2 * (TileMath.MAX_ZOOM - z - bits);
+        long first = TileMath.morton(x, y) << (2 * bits);
+        int cells = 1 << (2 * bits);
+
+        List<TileClusterDTO> clusters = new ArrayList<>();
+        int from = s.lowerBound(first << cellShift, 0);
+        int total = 0;
+        for (int c = 0; c < cells && from < s.size; c++) {
+            int to = s.lowerBound((first + c + 1) << cellShift, from);
+            int count = to - from;
+            if (count > 0) {
+                int best = s.best(from, to - 1);
+                clusters.add(new TileClusterDTO((s.latSum[to] - s.latSum[from]) / count,
+                        (s.lonSum[to] - s.lonSum[from]) / count, count, s.ids[best], s.names[best], s.ratings[best]));
+                total += count;
+            }
+            from = to;
+        }
+        return new MapTileDTO(z, x, y, total, clusters);
+    }
+
+    private static Point toPoint(Restaurant r) {
+        if (!Boolean.TRUE.equals(r.getIsActive()) || r.getAddress() == null || r.getAddress().getLatitude() == null
+                || r.getAddress().getLongitude() == null)
+            return null;
+        double lat = r.getAddress().getLatitude();
+        double lon = r.getAddress().getLongitude();
+        return new Point(r.getRestaurantId(), r.getName(), lat, lon, r.getRating() != null ? r.getRating() : 0.0,
+                TileMath.morton(lat, lon));
+    }
+
+    private static class Point {
+        final long id;
+        final String name;
+        final double lat;
+        final double lon;
+        final double rating;
+        final long code;
+
+        Point(long id, String name, double lat, double lon, double rating, long code) {
+            this.id = id;
+            this.name = name;
+            this.lat = lat;
+            this.lon = lon;
+            this.rating = rating;
+            this.code = code;
+        }
+    }
+
+    private static class Snapshot {
+        final int size;
+        final long[] codes;
+        final long[] ids;
+        final String[] names;
+        final double[] ratings;
+        // latSum[i] = sum of lats[0 .. i-1], same for lonSum
+        final double[] latSum;
+        final double[] lonSum;
+        // best[k][i] = slot of the best rated restaurant in [i, i + 2^k)
+        final int[][] best;
+
+        Snapshot(Collection<Point> points) {
+            Point[] sorted = points.toArray(new Point[0]);
+            Arrays.sort(sorted, (a, b) -> Long.compare(a.code, b.code));
+            size = sorted.length;
+            codes = new long[size];
+            ids = new long[size];
+            names = new String[size];
+            ratings = new double[size];
+            latSum = new double[size + 1];
+            lonSum = new double[size + 1];
+            for (int i = 0; i < size; i++) {
+                Point p = sorted[i];
+                codes[i] = p.code;
+                ids[i] = p.id;
+                names[i] = p.name;
+                ratings[i] = p.rating;
+                latSum[i + 1] = latSum[i] + p.lat;
+                lonSum[i + 1] = lonSum[i] + p.lon;
+            }
+            int levels = size > 1 ? 32 - Integer.numberOfLeadingZeros(size - 1) + 1 : 1;
+            best = new int[levels][];
+            best[0] = new int[size];
+            for (int i = 0; i < size; i++)
+                best[0][i] = i;
+            for (int k = 1; k < levels; k++) {
+                int span = 1 << k;
+                best[k] = new int[Math.max(0, size - span + 1)];
+                for (int i = 0; i + span <= size; i++)
+                    best[k][i] = better(best[k - 1][i], best[k - 1][i + span / 2]);
+            }
+        }
+
+        // Best rated slot in [lo, hi]; ties go to the lower restaurant id
+        int best(int lo, int hi) {
+            int k = 31 - Integer.numberOfLeadingZeros(hi - lo + 1);
+            return better(best[k][lo], best[k][hi - (1 << k) + 1]);
+        }
+
+        int better(int a, int b) {
+            if (ratings[a] != ratings[b])
+                return ratings[a] > ratings[b] ? a : b;
+            return ids[a] <= ids[b] ? a : b;
+        }
+
+        // First slot at or after from whose code is >= code
+        int lowerBound(long code, int from) {
+            int lo = from, hi = size;
+            while (lo < hi) {
+                int mid = (lo + hi) >>> 1;
+                if (codes[mid] < code)
+                    lo = mid + 1;
+                else
+                    hi = mid;
+            }
+            return lo;
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package com.tka.feasto.index;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.tka.feasto.dto.SuggestionDTO;
+import com.tka.feasto.enums.SuggestionType;
+import com.tka.feasto.repository.MenuItemRepository;
+import com.tka.feasto.repository.OrderItemRepository;
+import com.tka.feasto.repository.RestaurantRepository;
+
+/**
+ * Typeahead over restaurant names, cuisine types and dish names.
+ *
+ * Terms live in a compressed (radix) prefix trie, inserted once per word
+ * start so "pal" also finds "Pizza Palace". Every node keeps its top-K
+ * completions precomputed at build time, ranked by popularity (orders, and
+ * how many restaurants serve a cuisine or dish), so a lookup is one walk
+ * down the trie with no ranking work. The trie is an immutable snapshot
+ * rebuilt every feasto.suggest.refreshMs.
+ */
+@Component
+public class SuggestionTrie {
+
+    private static final Logger log = LoggerFactory.getLogger(SuggestionTrie.class);
+
+    private static final Comparator<Term> BY_POPULARITY = Comparator.comparingDouble((Term t) -> -t.score)
+            .thenComparing(t -> t.text);
+
+    @Autowired
+    private RestaurantRepository restaurantRepository;
+
+    @Autowired
+    private MenuItemRepository menuItemRepository;
+
+    @Autowired
+    private OrderItemRepository orderItemRepository;
+
+    @Value("${feasto.suggest.topK:10}")
+    private int topK;
+
+    private volatile Node root;
+
+    public boolean isReady() {
+        return root != null;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${feasto.suggest.refreshMs:600000}",
+            initialDelayString = "${feasto.suggest.refreshMs:600000}")
+    public void refresh() {
+        List<Term> terms = new ArrayList<>();
+        Map<String, Term> cuisines = new HashMap<>();
+        // restaurants: (restaurantId, name, cuisineType, rating, orderCount)
+        for (Object[] row : restaurantRepository.findActiveSuggestionStats()) {
+            long orders = ((Number) row[4]).longValue();
+            double rating = row[3] != null ? ((Number) row[3]).doubleValue() : 0.0;
+            if (row[1] != null)
+                terms.add(new Term((String) row[1], SuggestionType.RESTAURANT, ((Number) row[0]).longValue(),
+                        orders + rating));
+            String cuisine = (String) row[2];
+            if (cuisine != null && !cuisine.isBlank()) {
+                Term term = cuisines.computeIfAbsent(normalize(cuisine),
+                        k -> new Term(cuisine.trim(), SuggestionType.CUISINE, null, 0));
+                term.score += orders + 1; // every restaurant serving it counts once
+            }
+        }
+        terms.addAll(cuisines.values());
+        // dishes: (lower(name), name, restaurants offering it) + quantity ordered
+        Map<String, Number> ordered = new HashMap<>();
+        for (Object[] row : orderItemRepository.sumQuantityByDishName())
+            ordered.put((String) row[0], (Number) row[1]);
+        for (Object[] row : menuItemRepository.countAvailableDishNames()) {
+            Number quantity = ordered.get((String) row[0]);
+            terms.add(new Term(((String) row[1]).trim(), SuggestionType.DISH, null,
+                    ((Number) row[2]).doubleValue() + (quantity != null ? quantity.doubleValue() : 0)));
+        }
+        root = build(terms, Math.max(1, topK));
+        log.debug("Suggestion trie built from {} terms", terms.size());
+    }
+
+    /** Up to {@code limit} (at most topK) most popular completions of the prefix. */
+    public List<SuggestionDTO> suggest(String prefix, int limit) {
+        Node current = root;
+        if (current == null || limit <= 0)
+            return Collections.emptyList();
+        String p = normalize(prefix);
+        int i = 0;
+        Node node = current;
+        while (i < p.length()) {
+            Node child = node.children.get(p.charAt(i));
+            if (child == null)
+                return Collections.emptyList();
+            String label = child.label;
+            int n = 0;
+            while (n < label.length() && i + n < p.length() && label.charAt(n) == p.charAt(i + n))
+                n++;
+            if (i + n == p.length()) {
+                node = child; // prefix ends on or inside this edge
+                break;
+            }
+            if (n < label.length())
+                return Collections.emptyList();
+            i += n;
+            node = child;
+        }
+        List<SuggestionDTO> out = new ArrayList<>(Math.min(limit, node.top.length));
+        for (int k = 0; k < node.top.length && k < limit; k++) {
+            Term t = node.top[k];
+            out.add(new SuggestionDTO(t.text, t.type, t.restaurantId));
+        }
+        return out;
+    }
+
+    private static Node build(List<Term> terms, int k) {
+        Node root = new Node("");
+        for (Term term : terms) {
+            String key = normalize(term.text);
+            if (key.isEmpty())
+                continue;
+            insert(root, key, term);
+            for (int i = key.indexOf(' '); i >= 0; i = key.indexOf(' ', i + 1)) {
+                if (i + 1 < key.length())
+                    insert(root, key.substring(i + 1), term);
+            }
+        }
+        computeTop(root, k);
+        return root;
+    }
+
+    private static void insert(Node root, String key, Term term) {
+        Node node = root;
+        int i = 0;
+        while (i < key.length()) {
+            char c = key.charAt(i);
+            Node child = node.children.get(c);
+            if (child == null) {
+                child = new Node(key.substring(i));
+                node.children.put(c, child);
+                child.terms.add(term);
+                return;
+            }
+            String label = child.label;
+            int n = 0;
+            while (n < label.length() && i + n < key.length() && label.charAt(n) == key.charAt(i + n))
+                n++;
+            if (n < label.length()) {
+                // split the edge at the first mismatch
+                Node mid = new Node(label.substring(0, n));
+                child.label = label.substring(n);
+                mid.children.put(child.label.charAt(0), child);
+                node.children.put(c, mid);
+                child = mid;
+            }
+            i += n;
+            node = child;
+        }
+        node.terms.add(term);
+    }
+
+    // Post-order: a node's top-K is the best of its own terms and its children's top-K
+    private static void computeTop(Node node, int k) {
+        List<Term> candidates = new ArrayList<>(node.terms);
+        for (Node child : node.children.values()) {
+            computeTop(child, k);
+            Collections.addAll(candidates, child.top);
+        }
+        candidates.sort(BY_POPULARITY);
+        Set<Term> seen = Collections.newSetFromMap(new IdentityHashMap<>());
+        List<Term> top = new ArrayList<>(k);
+        for (Term t : candidates) {
+            if (top.size() == k)
+                break;
+            if (seen.add(t)) // a multi-word term can reach a node through two of its words
+                top.add(t);
+        }
+        node.top = top.toArray(new Term[0]);
+    }
+
+    private static String normalize(String text) {
+        return text == null ? "" : text.trim().toLowerCase(Locale.ROOT).replaceAll("\\s+", " ");
+    }
+
+    private static class Term {
+        final String text;
+        final SuggestionType type;
+        final Long restaurantId;
+        double score;
+
+        Term(String text, SuggestionType type, Long restaurantId, double score) {
+            this.text = text;
+            this.type = type;
+            this.restaurantId = restaurantId;
+            this.score = score;
+        }
+    }
+
+    private static class Node {
+        String label; // edge label leading into this node
+        final Map<Character, Node> children = new HashMap<>(4);
+        final List<Term> terms = new ArrayList<>(1);
+        Term[] top = new Term[0];
+
+        Node(String label) {
+            this.label = label;
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.tka.feasto.mapper;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import org.modelmapper.ModelMapper;
@@ -41,8 +42,23 @@ public class CustomMapper {
 
     }
 
+    // Entity -> DTO mappings run inside every list endpoint, so they are written
+    // out field by field; ModelMapper is kept for the inbound DTO -> entity side.
+
     public UserDTO toUserDTO(User user) {
-        return modelMapper.map(user, UserDTO.class);
+        if (user == null)
+            return null;
+        UserDTO dto = new UserDTO();
+        dto.setUserId(user.getUserId());
+        dto.setName(user.getName());
+        dto.setEmail(user.getEmail());
+        dto.setPhoneNumber(user.getPhoneNumber());
+        dto.setPassword(user.getPassword());
+        dto.setAddress(copyAddress(user.getAddress()));
+        dto.setRole(user.getRole());
+        dto.setCreatedAt(user.getCreatedAt());
+        dto.setUpdatedAt(user.getUpdatedAt());
+        return dto;
     }
 
     public User toUser(UserDTO userDTO) {
@@ -50,7 +66,42 @@ public class CustomMapper {
     }
 
     public RestaurantDTO toRestaurantDTO(Restaurant restaurant) {
-        return modelMapper.map(restaurant, RestaurantDTO.class);
+        if (restaurant == null)
+            return null;
+        RestaurantDTO dto = new RestaurantDTO();
+        dto.setRestaurantId(restaurant.getRestaurantId());
+        dto.setName(restaurant.getName());
+        dto.setDescription(restaurant.getDescription());
+        dto.setAddress(copyAddress(restaurant.getAddress()));
+        dto.setDeliveryZone(restaurant.getDeliveryZone() != null ? new ArrayList<>(restaurant.getDeliveryZone()) : null);
+        dto.setPhoneNumber(restaurant.getPhoneNumber());
+        dto.setCuisineType(restaurant.getCuisineType());
+        dto.setEmail(restaurant.getEmail());
+        dto.setPassword(restaurant.getPassword());
+        dto.setRating(restaurant.getRating());
+        dto.setIsActive(restaurant.getIsActive());
+        dto.setRole(restaurant.getRole());
+        dto.setCreatedAt(restaurant.getCreatedAt());
+        dto.setUpdatedAt(restaurant.getUpdatedAt());
+        dto.setImageUrl(restaurant.getImageUrl());
+        dto.setCloudinaryPublicId(restaurant.getCloudinaryPublicId());
+        return dto;
+    }
+
+    // Copy of a restaurant DTO so cached instances are never mutated by callers.
+    // toBuilder carries every field over, so only the mutable members need a
+    // fresh instance here. The specials list is copied; its items are shared
+    // since callers only set per-request fields on the restaurant itself.
+    public RestaurantDTO copyRestaurantDTO(RestaurantDTO source) {
+        if (source == null)
+            return null;
+        return source.toBuilder()
+                .address(copyAddress(source.getAddress()))
+                .deliveryZone(source.getDeliveryZone() != null ? new ArrayList<>(source.getDeliveryZone()) : null)
+                .specialMenuItems(source.getSpecialMenuItems() != null
+                        ? new ArrayList<>(source.getSpecialMenuItems())
+                        : null)
+                .build();
     }
 
     public Restaurant toRestaurant(RestaurantDTO restaurantDTO) {
@@ -62,7 +113,20 @@ public class CustomMapper {
     }
 
     public MenuItemDTO toMenuItemDTO(MenuItem menuItem) {
-        return modelMapper.map(menuItem, MenuItemDTO.class);
+        if (menuItem == null)
+            return null;
+        MenuItemDTO dto = new MenuItemDTO();
+        dto.setMenuItemId(menuItem.getMenuItemId());
+        dto.setRestaurantId(menuItem.getRestaurant() != null ? menuItem.getRestaurant().getRestaurantId() : null);
+        dto.setName(menuItem.getName());
+        dto.setDescription(menuItem.getDescription());
+        dto.setPrice(menuItem.getPrice());
+        dto.setCategory(menuItem.getCategory());
+        dto.setIsAvailable(menuItem.getIsAvailable());
+        dto.setRating(menuItem.getRating());
+        dto.setImageUrl(menuItem.getImageUrl());
+        dto.setCloudinaryPublicId(menuItem.getCloudinaryPublicId());
+        return dto;
     }
 
     // Manual mapping from OrderDTO to Order entity
@@ -139,7 +203,22 @@ public class CustomMapper {
     }
 
     public DeliveryPartnerDTO toDeliveryPartnerDTO(DeliveryPartner deliveryPartner) {
-        return modelMapper.map(deliveryPartner, DeliveryPartnerDTO.class);
+        if (deliveryPartner == null)
+            return null;
+        DeliveryPartnerDTO dto = new DeliveryPartnerDTO();
+        dto.setDeliveryPartnerId(deliveryPartner.getDeliveryPartnerId());
+        dto.setName(deliveryPartner.getName());
+        dto.setPhoneNumber(deliveryPartner.getPhoneNumber());
+        dto.setEmail(deliveryPartner.getEmail());
+        dto.setPassword(deliveryPartner.getPassword());
+        dto.setRole(deliveryPartner.getRole());
+        dto.setVehicleDetails(deliveryPartner.getVehicleDetails());
+        dto.setAvailable(deliveryPartner.getAvailable());
+        dto.setCurrentLocation(copyLocation(deliveryPartner.getCurrentLocation()));
+        dto.setRating(deliveryPartner.getAverageRating());
+        dto.setCreatedAt(deliveryPartner.getCreatedAt());
+        dto.setUpdatedAt(deliveryPartner.getUpdatedAt());
+        return dto;
     }
 
     public DeliveryPartner toDeliveryPartner(DeliveryPartnerDTO deliveryPartnerDTO) {
@@ -147,7 +226,19 @@ public class CustomMapper {
     }
 
     public ReviewDTO toReviewDTO(Review review) {
-        return modelMapper.map(review, ReviewDTO.class);
+        if (review == null)
+            return null;
+        ReviewDTO dto = new ReviewDTO();
+        dto.setReviewId(review.getReviewId());
+        dto.setUserId(review.getUser() != null ? review.getUser().getUserId() : null);
+        dto.setRestaurantId(review.getRestaurant() != null ? review.getRestaurant().getRestaurantId() : null);
+        dto.setOrderId(review.getOrder() != null ? review.getOrder().getOrderId() : null);
+        dto.setDeliveryPartnerId(
+                review.getDeliveryPartner() != null ? review.getDeliveryPartner().getDeliveryPartnerId() : null);
+        dto.setRating(review.getRating());
+        dto.setComment(review.getComment());
+        dto.setReviewTime(review.getReviewTime());
+        return dto;
     }
 
     public Review toReview(ReviewDTO reviewDTO) {
@@ -155,7 +246,17 @@ public class CustomMapper {
     }
 
     public AddressDTO toAddressDTO(Address address) {
-        return modelMapper.map(address, AddressDTO.class);
+        if (address == null)
+            return null;
+        AddressDTO dto = new AddressDTO();
+        dto.setStreet(address.getStreet());
+        dto.setCity(address.getCity());
+        dto.setState(address.getState());
+        dto.setPostalCode(address.getPostalCode());
+        dto.setCountry(address.getCountry());
+        dto.setLatitude(address.getLatitude());
+        dto.setLongitude(address.getLongitude());
+        return dto;
     }
 
     public Address toAddress(AddressDTO addressDTO) {
@@ -163,7 +264,18 @@ public class CustomMapper {
     }
 
     public PaymentDTO toPaymentDTO(Payment payment) {
-        return modelMapper.map(payment, PaymentDTO.class);
+        if (payment == null)
+            return null;
+        PaymentDTO dto = new PaymentDTO();
+        dto.setPaymentId(payment.getPaymentId());
+        dto.setOrderId(payment.getOrder() != null ? payment.getOrder().getOrderId() : null);
+        dto.setUserId(payment.getUser() != null ? payment.getUser().getUserId() : null);
+        dto.setAmount(payment.getAmount());
+        dto.setPaymentMethod(payment.getPaymentMethod());
+        dto.setPaymentStatus(payment.getPaymentStatus());
+        dto.setTransactionId(payment.getTransactionId());
+        dto.setPaymentTime(payment.getPaymentTime());
+        return dto;
     }
 
     public Payment toPayment(PaymentDTO paymentDTO) {
@@ -171,7 +283,16 @@ public class CustomMapper {
     }
 
     public LoyaltyProgramDTO toLoyaltyProgramDTO(LoyaltyProgram loyaltyProgram) {
-        return modelMapper.map(loyaltyProgram, LoyaltyProgramDTO.class);
+        if (loyaltyProgram == null)
+            return null;
+        LoyaltyProgramDTO dto = new LoyaltyProgramDTO();
+        dto.setLoyaltyId(loyaltyProgram.getLoyaltyId());
+        dto.setUserId(loyaltyProgram.getUser() != null ? loyaltyProgram.getUser().getUserId() : null);
+        dto.setMembershipType(loyaltyProgram.getMembershipType());
+        dto.setStartDate(loyaltyProgram.getStartDate());
+        dto.setEndDate(loyaltyProgram.getEndDate());
+        dto.setBenefits(loyaltyProgram.getBenefits());
+        return dto;
     }
 
     public LoyaltyProgram toLoyaltyProgram(LoyaltyProgramDTO loyaltyProgramDTO) {
@@ -179,7 +300,12 @@ public class CustomMapper {
     }
 
     public LocationDTO toLocationDTO(Location location) {
-        return modelMapper.map(location, LocationDTO.class);
+        if (location == null)
+            return null;
+        LocationDTO dto = new LocationDTO();
+        dto.setLatitude(location.getLatitude());
+        dto.setLongitude(location.getLongitude());
+        return dto;
     }
 
     public Location toLocation(LocationDTO locationDTO) {
@@ -187,13 +313,44 @@ public class CustomMapper {
     }
 
     public NotificationDTO toNotificationDTO(Notification n) {
-        return modelMapper.map(n, NotificationDTO.class);
+        if (n == null)
+            return null;
+        NotificationDTO dto = new NotificationDTO();
+        dto.setType(n.getType());
+        dto.setMessage(n.getMessage());
+        dto.setRecipientId(n.getRecipientId());
+        dto.setRecipientRole(n.getRecipientRole());
+        dto.setTimestamp(n.getTimestamp());
+        dto.setRead(Boolean.TRUE.equals(n.getIsRead()));
+        return dto;
     }
 
     public Notification toNotificationEntity(NotificationDTO dto) {
         return modelMapper.map(dto, Notification.class);
     }
 
+    // DTOs embed the Address/Location types directly; copy them so a DTO never
+    // shares (or mutates) the managed entity's embeddable
+    private Address copyAddress(Address address) {
+        if (address == null)
+            return null;
+        Address copy = new Address();
+        copy.setStreet(address.getStreet());
+        copy.setCity(address.getCity());
+        copy.setState(address.getState());
+        copy.setPostalCode(address.getPostalCode());
+        copy.setCountry(address.getCountry());
+        copy.setLatitude(address.getLatitude());
+        copy.setLongitude(address.getLongitude());
+        return copy;
+    }
+
+    private Location copyLocation(Location location) {
+        if (location == null)
+            return null;
+        return new Location(location.getLatitude(), location.getLongitude());
+    }
+
     // Add more as needed for other DTOs like UserRegistrationDTO
     public User toUserFromRegistration(UserRegistrationDTO dto) {
         return modelMapper.map(dto, User.class);
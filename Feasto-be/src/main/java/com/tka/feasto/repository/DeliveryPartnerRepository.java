@@ -1,7 +1,9 @@
 package com.tka.feasto.repository;
 
+import java.util.Collection;
 import java.util.List;
 
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
@@ -11,5 +13,10 @@ import com.tka.feasto.entity.DeliveryPartner;
 public interface DeliveryPartnerRepository extends JpaRepository<DeliveryPartner, Long> {
     List<DeliveryPartner> findByAvailableTrue();
 
+    // Best-rated of the given partners (those presence reports available), for
+    // assignment when distance can't be used
+    List<DeliveryPartner> findByDeliveryPartnerIdInOrderByAverageRatingDescDeliveryPartnerIdAsc(
+            Collection<Long> ids, Pageable pageable);
+
     java.util.Optional<DeliveryPartner> findByEmailIgnoreCase(String email);
-}
\ No newline at end of file
+}
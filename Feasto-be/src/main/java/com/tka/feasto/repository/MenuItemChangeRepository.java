@@ -0,0 +1,32 @@
+package com.tka.feasto.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.tka.feasto.entity.MenuItemChange;
+
+@Repository
+public interface MenuItemChangeRepository extends JpaRepository<MenuItemChange, Long> {
+
+    // Changes after the cursor id, plus everything logged since :from (lookback
+    // for ids that committed out of order)
+    @Query("SELECT c FROM MenuItemChange c WHERE c.restaurantId = :restaurantId"
+            + " AND (c.changeId > :since OR c.changedAt >= :from) ORDER BY c.changeId")
+    List<MenuItemChange> findChangesSince(@Param("restaurantId") Long restaurantId, @Param("since") Long since,
+            @Param("from") LocalDateTime from);
+
+    @Modifying
+    @Transactional
+    @Query("DELETE FROM MenuItemChange c WHERE c.changedAt < :cutoff")
+    int deleteByChangedAtBefore(@Param("cutoff") LocalDateTime cutoff);
+
+    @Query("SELECT COALESCE(MAX(c.changeId), 0) FROM MenuItemChange c WHERE c.restaurantId = :restaurantId")
+    Long findLatestChangeId(@Param("restaurantId") Long restaurantId);
+}
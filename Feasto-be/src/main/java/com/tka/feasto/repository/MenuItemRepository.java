@@ -1,6 +1,7 @@
 // src/main/java/com/tka/feasto/repository/MenuItemRepository.java
 package com.tka.feasto.repository;
 
+import java.util.Collection;
 import java.util.List;
 
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -20,4 +21,25 @@ public interface MenuItemRepository extends JpaRepository<MenuItem, Long> {
     @QueryHints({ @QueryHint(name = "org.hibernate.cacheable", value = "true") })
     List<MenuItem> findByRestaurant_RestaurantId(@Param("restaurantId") Long restaurantId);
 
-}
\ No newline at end of file
+    // First :perRestaurant available items of every restaurant in :restaurantIds,
+    // in one round trip. Columns: menu_item_id, restaurant_id, name, description,
+    // price, category, rating, image_url, cloudinary_public_id
+    @Query(value = "SELECT ranked.menu_item_id, ranked.restaurant_id, ranked.name, ranked.description, ranked.price,"
+            + " ranked.category, ranked.rating, ranked.image_url, ranked.cloudinary_public_id"
+            + " FROM (SELECT m.*, ROW_NUMBER() OVER (PARTITION BY m.restaurant_id ORDER BY m.menu_item_id) AS rn"
+            + " FROM menu_items m WHERE m.restaurant_id IN (:restaurantIds) AND m.is_available = true) ranked"
+            + " WHERE ranked.rn <= :perRestaurant ORDER BY ranked.restaurant_id, ranked.rn", nativeQuery = true)
+    List<Object[]> findTopAvailableByRestaurantIds(@Param("restaurantIds") Collection<Long> restaurantIds,
+            @Param("perRestaurant") int perRestaurant);
+
+    // (lower(name), name, restaurantCount) per available dish name at active
+    // restaurants, for typeahead
+    @Query("SELECT LOWER(m.name), MIN(m.name), COUNT(DISTINCT m.restaurant.restaurantId) FROM MenuItem m"
+            + " WHERE m.isAvailable = true AND m.restaurant.isActive = true AND m.name IS NOT NULL"
+            + " GROUP BY LOWER(m.name)")
+    List<Object[]> countAvailableDishNames();
+
+    // Every menu item of an active restaurant, restaurant fetched, for the dish search index
+    @Query("SELECT m FROM MenuItem m JOIN FETCH m.restaurant r WHERE r.isActive = true")
+    List<MenuItem> findAllOfActiveRestaurants();
+}
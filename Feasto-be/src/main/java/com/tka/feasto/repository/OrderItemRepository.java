@@ -3,6 +3,7 @@ package com.tka.feasto.repository;
 
 import com.tka.feasto.entity.OrderItem;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
@@ -10,4 +11,9 @@ import java.util.List;
 @Repository
 public interface OrderItemRepository extends JpaRepository<OrderItem, Long> {
     List<OrderItem> findByOrder_OrderId(Long orderId);
+
+    // (lower(dish name), total quantity ordered), for typeahead ranking
+    @Query("SELECT LOWER(oi.menuItem.name), COALESCE(SUM(oi.quantity), 0) FROM OrderItem oi"
+            + " WHERE oi.menuItem.name IS NOT NULL GROUP BY LOWER(oi.menuItem.name)")
+    List<Object[]> sumQuantityByDishName();
 }
\ No newline at end of file
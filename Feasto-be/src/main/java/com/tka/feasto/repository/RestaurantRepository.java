@@ -6,6 +6,8 @@ import java.util.Optional;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.tka.feasto.entity.Restaurant;
@@ -25,4 +27,40 @@ public interface RestaurantRepository extends JpaRepository<Restaurant, Long>, R
 
        Page<Restaurant> findByAddress_CityIgnoreCaseAndIsActiveTrue(
                         String city, org.springframework.data.domain.Pageable pageable);
+
+        // Ids of the highest-rated active restaurants, best first (unrated last)
+        @Query("SELECT r.restaurantId FROM Restaurant r WHERE r.isActive = true"
+                        + " ORDER BY r.rating DESC, r.restaurantId")
+        List<Long> findTopRatedActiveIds(Pageable pageable);
+
+        // (restaurantId, city) of every active restaurant, for the random pool
+        @Query("SELECT r.restaurantId, r.address.city FROM Restaurant r WHERE r.isActive = true")
+        List<Object[]> findActiveIdsAndCities();
+
+        // (restaurantId, name, cuisineType, rating, orderCount) of every active
+        // restaurant, for typeahead ranking
+        @Query("SELECT r.restaurantId, r.name, r.cuisineType, r.rating, COUNT(o) FROM Restaurant r LEFT JOIN r.orders o"
+                        + " WHERE r.isActive = true GROUP BY r.restaurantId, r.name, r.cuisineType, r.rating")
+        List<Object[]> findActiveSuggestionStats();
+
+        // (restaurantId, name, rating, latitude, longitude) of the active
+        // restaurants inside a lat/lon box, best rated first; map tiles use it
+        // until the tile index has loaded
+        @Query("SELECT r.restaurantId, r.name, r.rating, r.address.latitude, r.address.longitude FROM Restaurant r"
+                        + " WHERE r.isActive = true AND r.address.latitude BETWEEN :south AND :north"
+                        + " AND r.address.longitude BETWEEN :west AND :east ORDER BY r.rating DESC, r.restaurantId")
+        List<Object[]> findActiveMarkersInBox(@Param("south") double south, @Param("north") double north,
+                        @Param("west") double west, @Param("east") double east, Pageable pageable);
+
+        @Query("SELECT COUNT(r) FROM Restaurant r WHERE r.isActive = true"
+                        + " AND r.address.latitude BETWEEN :south AND :north"
+                        + " AND r.address.longitude BETWEEN :west AND :east")
+        long countActiveInBox(@Param("south") double south, @Param("north") double north,
+                        @Param("west") double west, @Param("east") double east);
+
+        // (restaurantId, cuisineType, city, rating, isActive) of every restaurant,
+        // for the browse filter bitmaps
+        @Query("SELECT r.restaurantId, r.cuisineType, r.address.city, r.rating, r.isActive FROM Restaurant r"
+                        + " ORDER BY r.restaurantId")
+        List<Object[]> findBrowseAttributes();
 }
\ No newline at end of file
@@ -5,14 +5,22 @@ import java.util.List;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
-import com.tka.feasto.entity.Restaurant;
+import com.tka.feasto.index.NearbyCandidates;
 
 public interface RestaurantRepositoryCustom {
     // Returns a page of Object[] where each element is [Restaurant entity, Double
-    // distanceKm]
+    // distanceKm]. Uses the MySQL spatial query when feasto.nearby.spatial.enabled
+    // is set, else the in-memory geo index, else a bounding-box query ranked in
+    // Java.
     Page<Object[]> findNearbyWithDistance(double lat, double lon, Pageable pageable, String sort, double maxDistanceKm);
 
-    // Returns a list of random restaurants (entities). Note: randomness uses DB
-    // function; may require DB-specific function name.
-    List<Restaurant> findRandomRestaurants(int limit);
+    // Keyset (cursor) variant for infinite scroll: up to limit [Restaurant, Double
+    // distanceKm] rows ordered by (distanceKm, restaurantId) strictly after the
+    // cursor. Pass null cursor values for the first page.
+    List<Object[]> findNearbyAfter(double lat, double lon, double maxDistanceKm, Double afterDistanceKm,
+            Long afterRestaurantId, int limit);
+
+    // All active restaurants within radiusKm of the point as primitive
+    // (id, lat, lon, rating) arrays; callers rank and page them.
+    NearbyCandidates findNearbyCandidates(double lat, double lon, double radiusKm);
 }
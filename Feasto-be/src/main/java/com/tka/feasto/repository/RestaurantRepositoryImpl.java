@@ -1,15 +1,24 @@
 package com.tka.feasto.repository;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
 
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Repository;
 
+import com.tka.feasto.config.SpatialSchemaInitializer;
 import com.tka.feasto.entity.Restaurant;
+import com.tka.feasto.index.NearbyCandidates;
+import com.tka.feasto.index.RestaurantGeoIndex;
 import com.tka.feasto.util.DistanceUtil;
+import com.tka.feasto.util.TopKSelector;
 
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
@@ -18,12 +27,107 @@ import jakarta.persistence.Query;
 @Repository
 public class RestaurantRepositoryImpl implements RestaurantRepositoryCustom {
 
+    // Spatial cursor distances are rounded to this many decimals of a km (1 mm)
+    private static final int CURSOR_DECIMALS = 6;
+    private static final double CURSOR_SCALE = 1e6;
+
     @PersistenceContext
     private EntityManager em;
 
+    @Autowired
+    private RestaurantGeoIndex geoIndex;
+
+    @Autowired
+    private SpatialSchemaInitializer spatialSchema;
+
     @Override
     public Page<Object[]> findNearbyWithDistance(double lat, double lon, Pageable pageable, String sort,
             double maxDistanceKm) {
+        // MySQL spatial query (when enabled and probed at startup) does distance,
+        // ordering and LIMIT in the database so only one page of rows crosses the
+        // wire.
+        if (spatialSchema.isReady()) {
+            return findNearbySpatial(lat, lon, pageable, sort, maxDistanceKm);
+        }
+
+        // Otherwise serve from the in-memory grid index once it is loaded; only
+        // the page being returned is read from the database.
+        if (geoIndex.isReady()) {
+            return findNearbyFromIndex(lat, lon, pageable, sort, maxDistanceKm);
+        }
+
+        // Java fallback: rank bounding-box candidates with a bounded heap over
+        // primitive arrays and load entities for the returned page only
+        BoxCandidates c = loadBoxCandidates(lat, lon, maxDistanceKm);
+        boolean byDistance = "distance".equals(sort);
+        int start = (int) pageable.getOffset();
+        if (start >= c.count)
+            return new PageImpl<>(new ArrayList<>(), pageable, c.count);
+
+        TopKSelector top = new TopKSelector(Math.min(c.count, start + pageable.getPageSize()));
+        for (int i = 0; i < c.count; i++) {
+            top.offer(i, byDistance ? c.distances[i] : -c.ratings[i], c.ids[i]);
+        }
+        int[] ranked = top.drainSorted();
+        int n = ranked.length - start;
+        long[] pageIds = new long[n];
+        double[] pageDist = new double[n];
+        for (int i = 0; i < n; i++) {
+            pageIds[i] = c.ids[ranked[start + i]];
+            pageDist[i] = c.distances[ranked[start + i]];
+        }
+        return new PageImpl<>(loadInOrder(pageIds, pageDist), pageable, c.count);
+    }
+
+    @Override
+    public List<Object[]> findNearbyAfter(double lat, double lon, double maxDistanceKm, Double afterDistanceKm,
+            Long afterRestaurantId, int limit) {
+        double afterD = afterDistanceKm != null ? afterDistanceKm : -1.0;
+        long afterId = afterRestaurantId != null ? afterRestaurantId : Long.MIN_VALUE;
+
+        if (spatialSchema.isReady()) {
+            return findNearbyAfterSpatial(lat, lon, maxDistanceKm, afterD, afterId, limit);
+        }
+
+        if (geoIndex.isReady()) {
+            RestaurantGeoIndex.Hits hits = geoIndex.queryAfter(lat, lon, maxDistanceKm, afterD, afterId, limit);
+            return loadInOrder(hits.getRestaurantIds(), hits.getDistancesKm());
+        }
+
+        BoxCandidates c = loadBoxCandidates(lat, lon, maxDistanceKm);
+        TopKSelector top = new TopKSelector(Math.min(c.count, Math.max(0, limit)));
+        for (int i = 0; i < c.count; i++) {
+            double d = c.distances[i];
+            if (d < afterD || (d == afterD && c.ids[i] <= afterId))
+                continue;
+            top.offer(i, d, c.ids[i]);
+        }
+        int[] ranked = top.drainSorted();
+        long[] pageIds = new long[ranked.length];
+        double[] pageDist = new double[ranked.length];
+        for (int i = 0; i < ranked.length; i++) {
+            pageIds[i] = c.ids[ranked[i]];
+            pageDist[i] = c.distances[ranked[i]];
+        }
+        return loadInOrder(pageIds, pageDist);
+    }
+
+    @Override
+    public NearbyCandidates findNearbyCandidates(double lat, double lon, double radiusKm) {
+        if (spatialSchema.isReady()) {
+            return findNearbyCandidatesSpatial(lat, lon, radiusKm);
+        }
+        if (geoIndex.isReady()) {
+            return geoIndex.candidates(lat, lon, radiusKm);
+        }
+        BoxCandidates c = loadBoxCandidates(lat, lon, radiusKm);
+        return new NearbyCandidates(Arrays.copyOf(c.ids, c.count), Arrays.copyOf(c.lats, c.count),
+                Arrays.copyOf(c.lons, c.count), Arrays.copyOf(c.ratings, c.count));
+    }
+
+    // Restaurants inside the search radius, read as (id, lat, lon, rating)
+    // columns from a bounding-box query instead of full entities
+    private BoxCandidates loadBoxCandidates(double lat, double lon, double maxDistanceKm) {
         // Compute a bounding box for the provided search radius (maxDistanceKm). This
         // reduces DB rows scanned.
         // 1 degree latitude ~= 111 km
@@ -35,73 +139,204 @@ public class RestaurantRepositoryImpl implements RestaurantRepositoryCustom {
         double minLon = lon - lonDelta;
         double maxLon = lon + lonDelta;
 
-        String jpql = "SELECT r FROM Restaurant r WHERE r.isActive = true AND r.address.latitude BETWEEN :minLat AND :maxLat AND r.address.longitude BETWEEN :minLon AND :maxLon";
-        Query q = em.createQuery(jpql, Restaurant.class);
+        String jpql = "SELECT r.restaurantId, r.address.latitude, r.address.longitude, r.rating FROM Restaurant r WHERE r.isActive = true AND r.address.latitude BETWEEN :minLat AND :maxLat AND r.address.longitude BETWEEN :minLon AND :maxLon";
+        Query q = em.createQuery(jpql);
         q.setParameter("minLat", minLat);
         q.setParameter("maxLat", maxLat);
         q.setParameter("minLon", minLon);
         q.setParameter("maxLon", maxLon);
         @SuppressWarnings("unchecked")
-        List<Restaurant> candidates = q.getResultList();
-
-        // Compute distances in Java using DistanceUtil
-        List<Object[]> withDistances = new ArrayList<>();
-        for (Restaurant r : candidates) {
-            Double rlat = r.getAddress() != null ? r.getAddress().getLatitude() : null;
-            Double rlon = r.getAddress() != null ? r.getAddress().getLongitude() : null;
-            if (rlat == null || rlon == null)
+        List<Object[]> rows = q.getResultList();
+
+        // Compute distances in one DistanceUtil batch, then compact away the box
+        // corners beyond the radius
+        BoxCandidates c = new BoxCandidates(rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            Object[] row = rows.get(i);
+            c.ids[i] = ((Number) row[0]).longValue();
+            c.lats[i] = ((Number) row[1]).doubleValue();
+            c.lons[i] = ((Number) row[2]).doubleValue();
+            c.ratings[i] = row[3] == null ? 0.0 : ((Number) row[3]).doubleValue();
+        }
+        DistanceUtil.haversineWithin(lat, lon, c.lats, c.lons, rows.size(), radiusKm, c.distances);
+        for (int i = 0; i < rows.size(); i++) {
+            if (c.distances[i] > radiusKm)
                 continue;
-            double d = DistanceUtil.haversine(lat, lon, rlat, rlon);
-            withDistances.add(new Object[] { r, d });
-        }
-
-        // Sort
-        if ("distance".equals(sort)) {
-            withDistances.sort((a, b) -> Double.compare(((Number) a[1]).doubleValue(), ((Number) b[1]).doubleValue()));
-        } else if ("rating".equals(sort)) {
-            withDistances.sort((a, b) -> {
-                Double ra = ((Restaurant) a[0]).getRating();
-                Double rb = ((Restaurant) b[0]).getRating();
-                return Double.compare(rb == null ? 0.0 : rb, ra == null ? 0.0 : ra);
-            });
-        } else {
-            // default by rating desc
-            withDistances.sort((a, b) -> {
-                Double ra = ((Restaurant) a[0]).getRating();
-                Double rb = ((Restaurant) b[0]).getRating();
-                return Double.compare(rb == null ? 0.0 : rb, ra == null ? 0.0 : ra);
-            });
-        }
-
-        // Page manually
-        int total = withDistances.size();
-        int start = (int) pageable.getOffset();
-        int end = Math.min(start + pageable.getPageSize(), total);
-        List<Object[]> pageContent = start >= total ? new ArrayList<>()
-                : withDistances.subList(start, end);
+            c.ids[c.count] = c.ids[i];
+            c.lats[c.count] = c.lats[i];
+            c.lons[c.count] = c.lons[i];
+            c.distances[c.count] = c.distances[i];
+            c.ratings[c.count] = c.ratings[i];
+            c.count++;
+        }
+        return c;
+    }
 
-        return new PageImpl<>(pageContent, pageable, total);
+    private Page<Object[]> findNearbyFromIndex(double lat, double lon, Pageable pageable, String sort,
+            double maxDistanceKm) {
+        RestaurantGeoIndex.Hits hits = geoIndex.query(lat, lon, maxDistanceKm, sort,
+                (int) pageable.getOffset(), pageable.getPageSize());
+        List<Object[]> pageContent = loadInOrder(hits.getRestaurantIds(), hits.getDistancesKm());
+        return new PageImpl<>(pageContent, pageable, hits.getTotal());
     }
 
-    @Override
-    public List<Restaurant> findRandomRestaurants(int limit) {
-        // Use function('random') or function('rand') - fallback strategy
-        // Try random() (Postgres), else rand() (MySQL). Use COALESCE by attempting one;
-        // here we'll try random() and fall back in code if it fails.
-        List<Restaurant> list = new ArrayList<>();
-        try {
-            Query q = em.createQuery("SELECT r FROM Restaurant r WHERE r.isActive = true ORDER BY function('random')");
-            q.setMaxResults(limit);
-            @SuppressWarnings("unchecked")
-            List<Restaurant> result = q.getResultList();
-            list.addAll(result);
-        } catch (Exception ex) {
-            Query q = em.createQuery("SELECT r FROM Restaurant r WHERE r.isActive = true ORDER BY function('rand')");
-            q.setMaxResults(limit);
-            @SuppressWarnings("unchecked")
-            List<Restaurant> result = q.getResultList();
-            list.addAll(result);
-        }
-        return list;
+    // Native MySQL variant: ST_Distance_Sphere on the SPATIAL-indexed geo_point
+    // column, MBRContains on the bounding box so the index is used, and the
+    // page cut with LIMIT/OFFSET. The total comes from a separate COUNT.
+    private Page<Object[]> findNearbySpatial(double lat, double lon, Pageable pageable, String sort,
+            double maxDistanceKm) {
+        double radiusKm = maxDistanceKm > 0 ? maxDistanceKm : 50.0;
+        String distance = "ST_Distance_Sphere(r." + SpatialSchemaInitializer.GEO_COLUMN
+                + ", ST_SRID(POINT(:lon, :lat), 4326))";
+        String where = " FROM restaurants r WHERE r.is_active = true"
+                + " AND r.latitude IS NOT NULL AND r.longitude IS NOT NULL"
+                + " AND MBRContains(ST_GeomFromText(:box, 4326, 'axis-order=long-lat'), r."
+                + SpatialSchemaInitializer.GEO_COLUMN + ")"
+                + " AND " + distance + " <= :radiusM";
+        String orderBy = "distance".equals(sort)
+                ? " ORDER BY distance_m ASC, r.restaurant_id ASC"
+                : " ORDER BY COALESCE(r.rating, 0) DESC, r.restaurant_id ASC";
+
+        Query q = em.createNativeQuery("SELECT r.restaurant_id, " + distance + " AS distance_m" + where + orderBy);
+        bindSpatialParams(q, lat, lon, radiusKm);
+        q.setFirstResult((int) pageable.getOffset());
+        q.setMaxResults(pageable.getPageSize());
+        @SuppressWarnings("unchecked")
+        List<Object[]> rows = q.getResultList();
+
+        Query countQ = em.createNativeQuery("SELECT COUNT(*)" + where);
+        bindSpatialParams(countQ, lat, lon, radiusKm);
+        long total = ((Number) countQ.getSingleResult()).longValue();
+
+        long[] ids = new long[rows.size()];
+        double[] distances = new double[rows.size()];
+        for (int i = 0; i < rows.size(); i++) {
+            ids[i] = ((Number) rows.get(i)[0]).longValue();
+            distances[i] = ((Number) rows.get(i)[1]).doubleValue() / 1000.0;
+        }
+        return new PageImpl<>(loadInOrder(ids, distances), pageable, total);
+    }
+
+    private void bindSpatialParams(Query q, double lat, double lon, double radiusKm) {
+        double latDelta = radiusKm / 111.0;
+        double lonDelta = radiusKm / (111.320 * Math.cos(Math.toRadians(lat)));
+        double minLat = Math.max(-90.0, lat - latDelta);
+        double maxLat = Math.min(90.0, lat + latDelta);
+        double minLon = Math.max(-180.0, lon - lonDelta);
+        double maxLon = Math.min(180.0, lon + lonDelta);
+        String box = String.format(Locale.ROOT,
+                "POLYGON((%f %f, %f %f, %f %f, %f %f, %f %f))",
+                minLon, minLat, maxLon, minLat, maxLon, maxLat, minLon, maxLat, minLon, minLat);
+        q.setParameter("lat", lat);
+        q.setParameter("lon", lon);
+        q.setParameter("box", box);
+        q.setParameter("radiusM", radiusKm * 1000.0);
+    }
+
+    private List<Object[]> findNearbyAfterSpatial(double lat, double lon, double maxDistanceKm, double afterD,
+            long afterId, int limit) {
+        double radiusKm = maxDistanceKm > 0 ? maxDistanceKm : 50.0;
+        // The cursor key is the distance rounded to CURSOR_DECIMALS, both in the
+        // query and in the cursor bound, so the equality tie-break on id
+        // compares the same double instead of a recomputed, reparsed one
+        String distanceKm = "ROUND(ST_Distance_Sphere(r." + SpatialSchemaInitializer.GEO_COLUMN
+                + ", ST_SRID(POINT(:lon, :lat), 4326)) / 1000, " + CURSOR_DECIMALS + ")";
+        String sql = "SELECT r.restaurant_id, " + distanceKm + " AS distance_km"
+                + " FROM restaurants r WHERE r.is_active = true"
+                + " AND r.latitude IS NOT NULL AND r.longitude IS NOT NULL"
+                + " AND MBRContains(ST_GeomFromText(:box, 4326, 'axis-order=long-lat'), r."
+                + SpatialSchemaInitializer.GEO_COLUMN + ")"
+                + " AND ST_Distance_Sphere(r." + SpatialSchemaInitializer.GEO_COLUMN
+                + ", ST_SRID(POINT(:lon, :lat), 4326)) <= :radiusM"
+                + " AND (" + distanceKm + " > :afterD OR (" + distanceKm + " = :afterD AND r.restaurant_id > :afterId))"
+                + " ORDER BY distance_km ASC, r.restaurant_id ASC";
+        Query q = em.createNativeQuery(sql);
+        bindSpatialParams(q, lat, lon, radiusKm);
+        q.setParameter("afterD", afterD < 0 ? afterD : Math.round(afterD * CURSOR_SCALE) / CURSOR_SCALE);
+        q.setParameter("afterId", afterId);
+        q.setMaxResults(limit);
+        @SuppressWarnings("unchecked")
+        List<Object[]> rows = q.getResultList();
+
+        long[] ids = new long[rows.size()];
+        double[] distances = new double[rows.size()];
+        for (int i = 0; i < rows.size(); i++) {
+            ids[i] = ((Number) rows.get(i)[0]).longValue();
+            distances[i] = ((Number) rows.get(i)[1]).doubleValue();
+        }
+        return loadInOrder(ids, distances);
+    }
+
+    private NearbyCandidates findNearbyCandidatesSpatial(double lat, double lon, double maxDistanceKm) {
+        double radiusKm = maxDistanceKm > 0 ? maxDistanceKm : 50.0;
+        String sql = "SELECT r.restaurant_id, r.latitude, r.longitude, r.rating"
+                + " FROM restaurants r WHERE r.is_active = true"
+                + " AND r.latitude IS NOT NULL AND r.longitude IS NOT NULL"
+                + " AND MBRContains(ST_GeomFromText(:box, 4326, 'axis-order=long-lat'), r."
+                + SpatialSchemaInitializer.GEO_COLUMN + ")"
+                + " AND ST_Distance_Sphere(r." + SpatialSchemaInitializer.GEO_COLUMN
+                + ", ST_SRID(POINT(:lon, :lat), 4326)) <= :radiusM";
+        Query q = em.createNativeQuery(sql);
+        bindSpatialParams(q, lat, lon, radiusKm);
+        @SuppressWarnings("unchecked")
+        List<Object[]> rows = q.getResultList();
+
+        int n = rows.size();
+        long[] ids = new long[n];
+        double[] lats = new double[n];
+        double[] lons = new double[n];
+        double[] ratings = new double[n];
+        for (int i = 0; i < n; i++) {
+            Object[] row = rows.get(i);
+            ids[i] = ((Number) row[0]).longValue();
+            lats[i] = ((Number) row[1]).doubleValue();
+            lons[i] = ((Number) row[2]).doubleValue();
+            ratings[i] = row[3] == null ? 0.0 : ((Number) row[3]).doubleValue();
+        }
+        return new NearbyCandidates(ids, lats, lons, ratings);
+    }
+
+    // Load restaurants by id and return [Restaurant, Double distanceKm] rows in
+    // the given order, skipping ids that no longer exist.
+    private List<Object[]> loadInOrder(long[] restaurantIds, double[] distancesKm) {
+        List<Object[]> rows = new ArrayList<>(restaurantIds.length);
+        if (restaurantIds.length == 0)
+            return rows;
+
+        List<Long> ids = new ArrayList<>(restaurantIds.length);
+        for (long id : restaurantIds)
+            ids.add(id);
+        List<Restaurant> loaded = em
+                .createQuery("SELECT r FROM Restaurant r WHERE r.restaurantId IN :ids", Restaurant.class)
+                .setParameter("ids", ids)
+                .getResultList();
+        Map<Long, Restaurant> byId = new HashMap<>();
+        for (Restaurant r : loaded)
+            byId.put(r.getRestaurantId(), r);
+
+        for (int i = 0; i < restaurantIds.length; i++) {
+            Restaurant r = byId.get(restaurantIds[i]);
+            if (r != null)
+                rows.add(new Object[] { r, distancesKm[i] });
+        }
+        return rows;
+    }
+
+    // Parallel primitive arrays of bounding-box candidates within the radius
+    private static class BoxCandidates {
+        final long[] ids;
+        final double[] lats;
+        final double[] lons;
+        final double[] distances;
+        final double[] ratings;
+        int count;
+
+        BoxCandidates(int capacity) {
+            ids = new long[capacity];
+            lats = new double[capacity];
+            lons = new double[capacity];
+            distances = new double[capacity];
+            ratings = new double[capacity];
+        }
     }
 }
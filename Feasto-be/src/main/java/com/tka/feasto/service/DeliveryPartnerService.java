@@ -1,14 +1,15 @@
 package com.tka.feasto.service;
 
+import java.util.Comparator;
 import java.util.List;
 import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
-import org.springframework.cache.annotation.Caching;
 import org.springframework.stereotype.Service;
 
+import com.tka.feasto.cache.PartnerPresenceStore;
 import com.tka.feasto.dto.DeliveryPartnerDTO;
 import com.tka.feasto.entity.DeliveryPartner;
 import com.tka.feasto.entity.Location;
@@ -27,48 +28,59 @@ public class DeliveryPartnerService {
     @Autowired
     private CustomMapper mapper;
 
-    @Caching(evict = { @CacheEvict(value = "deliveryPartnersAll", allEntries = true),
-            @CacheEvict(value = "deliveryPartnersAvailable", allEntries = true) })
+    @Autowired
+    private PartnerPresenceStore presence;
+
+    @CacheEvict(value = "deliveryPartnersAll", allEntries = true)
     public DeliveryPartnerDTO registerDeliveryPartner(DeliveryPartnerDTO dto) {
         DeliveryPartner partner = mapper.toDeliveryPartner(dto);
         if (partner.getRole() == null) {
             partner.setRole(Role.DELIVERY_PARTNER);
         }
         DeliveryPartner saved = deliveryPartnerRepository.save(partner);
+        presence.setAvailability(saved, Boolean.TRUE.equals(saved.getAvailable()), saved.getCurrentLocation());
         return mapper.toDeliveryPartnerDTO(saved);
     }
 
+    // Profiles carry presence, not the row, so one re-cached between an
+    // availability flip and its write-behind doesn't hold the old availability
     @Cacheable(value = "deliveryPartnerById", key = "#id")
     public DeliveryPartnerDTO getDeliveryPartnerById(Long id) {
         DeliveryPartner partner = deliveryPartnerRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Delivery Partner not found with id: " + id));
-        return mapper.toDeliveryPartnerDTO(partner);
+        return withPresence(mapper.toDeliveryPartnerDTO(partner));
     }
 
     @Cacheable(value = "deliveryPartnersAll")
     public List<DeliveryPartnerDTO> getAllDeliveryPartners() {
         return deliveryPartnerRepository.findAll().stream()
                 .map(mapper::toDeliveryPartnerDTO)
+                .map(this::withPresence)
                 .collect(Collectors.toList());
     }
 
-    @Caching(evict = { @CacheEvict(value = "deliveryPartnersAll", allEntries = true),
-            @CacheEvict(value = "deliveryPartnersAvailable", allEntries = true),
-            @CacheEvict(value = "deliveryPartnerById", key = "#id") })
+    // Presence lives in PartnerPresenceStore and is written behind; no row save here.
+    // Profile caches are evicted by the store only when availability flips.
+    @CacheEvict(value = "deliveryPartnerById", key = "#id")
     public DeliveryPartnerDTO updateAvailability(Long id, boolean isAvailable, Location currentLocation) {
         DeliveryPartner partner = deliveryPartnerRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Delivery Partner not found with id: " + id));
-        partner.setAvailable(isAvailable);
-        if (currentLocation != null) {
-            partner.setCurrentLocation(currentLocation);
+        presence.setAvailability(partner, isAvailable, currentLocation);
+        return withPresence(mapper.toDeliveryPartnerDTO(partner));
+    }
+
+    // Live position from the location stream; doubles as the presence heartbeat
+    public void updateLiveLocation(Long id, Double latitude, Double longitude) {
+        if (latitude != null && longitude != null) {
+            presence.heartbeat(id, latitude, longitude);
         }
-        DeliveryPartner updated = deliveryPartnerRepository.save(partner);
-        return mapper.toDeliveryPartnerDTO(updated);
     }
 
     public List<DeliveryPartnerDTO> getAvailableDeliveryPartners() {
-        return deliveryPartnerRepository.findByAvailableTrue().stream()
+        return deliveryPartnerRepository.findAllById(presence.availablePartnerIds()).stream()
                 .map(mapper::toDeliveryPartnerDTO)
+                .map(this::withPresence)
+                .sorted(Comparator.comparing(DeliveryPartnerDTO::getDeliveryPartnerId))
                 .collect(Collectors.toList());
     }
 
@@ -80,4 +92,15 @@ public class DeliveryPartnerService {
         }
         return mapper.toDeliveryPartnerDTO(partner);
     }
+
+    // Overlay in-memory availability/location, which may be ahead of the row
+    private DeliveryPartnerDTO withPresence(DeliveryPartnerDTO dto) {
+        PartnerPresenceStore.Presence p = presence.get(dto.getDeliveryPartnerId());
+        if (p != null) {
+            dto.setAvailable(p.isAvailable());
+            if (p.getLatitude() != null && p.getLongitude() != null)
+                dto.setCurrentLocation(new Location(p.getLatitude(), p.getLongitude()));
+        }
+        return dto;
+    }
 }
\ No newline at end of file
@@ -1,12 +1,14 @@
 package com.tka.feasto.service;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
 
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
@@ -14,6 +16,8 @@ import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.tka.feasto.cache.OrderCacheInvalidator;
+import com.tka.feasto.cache.PartnerPresenceStore;
 import com.tka.feasto.dto.OrderDTO;
 import com.tka.feasto.entity.DeliveryPartner;
 import com.tka.feasto.entity.Order;
@@ -26,6 +30,7 @@ import com.tka.feasto.enums.PaymentMethod;
 import com.tka.feasto.enums.PaymentStatus;
 import com.tka.feasto.exception.ResourceNotFoundException;
 import com.tka.feasto.exception.ValidationException;
+import com.tka.feasto.index.DeliveryPartnerIndex;
 import com.tka.feasto.mapper.CustomMapper;
 import com.tka.feasto.repository.DeliveryPartnerRepository;
 import com.tka.feasto.repository.OrderItemRepository;
@@ -35,6 +40,7 @@ import com.tka.feasto.repository.UserRepository;
 import com.tka.feasto.util.DistanceUtil;
 import com.tka.feasto.util.NotificationUtil;
 import com.tka.feasto.util.OrderUtil;
+import com.tka.feasto.util.TransactionUtil;
 
 @Service
 public class OrderService {
@@ -61,6 +67,15 @@ public class OrderService {
 	@Autowired
 	private DeliveryPartnerRepository deliveryPartnerRepository;
 
+	@Autowired
+	private OrderCacheInvalidator orderCacheInvalidator;
+
+	@Autowired
+	private DeliveryPartnerIndex partnerIndex;
+
+	@Autowired
+	private PartnerPresenceStore presence;
+
 	// Scoring weights and normalization settings for auto-assignment
 	@Value("${feasto.scoring.proximityWeight:0.7}")
 	private double proximityWeight;
@@ -71,10 +86,17 @@ public class OrderService {
 	@Value("${feasto.scoring.maxDistanceKm:10.0}")
 	private double maxDistanceKm;
 
+	// How many of the nearest available partners auto-assignment scores
+	@Value("${feasto.scoring.nearestPartners:20}")
+	private int nearestPartners;
+
+	// Farthest the nearest-partner search widens to when nobody is within
+	// maxDistanceKm
+	@Value("${feasto.scoring.searchLimitKm:50.0}")
+	private double searchLimitKm;
+
 	private static final double MAX_RATING = 5.0;
 
-	@CacheEvict(value = { "ordersByRestaurant", "ordersByUser", "ordersByDeliveryPartner",
-			"orderById" }, allEntries = true)
 	@Transactional
 	public OrderDTO placeOrder(OrderDTO orderDTO) {
 		User user = userRepository.findById(orderDTO.getUserId())
@@ -89,6 +111,7 @@ public class OrderService {
 			item.setOrder(savedOrder);
 			orderItemRepository.save(item);
 		}
+		evictOrderCaches(savedOrder);
 		// Payment for COD will be created/completed when order is delivered
 
 		// 1. Notify restaurant when user places an order
@@ -104,12 +127,11 @@ public class OrderService {
 
 	/**
 	 * Automated assignment of best delivery partner for an order.
-	 * Criteria: availability, (proximity), rating, orders completed.
-	 * Proximity/geospatial logic is commented for future implementation.
+	 * Criteria: availability, proximity, rating. Candidates are the nearest
+	 * available partners from {@link DeliveryPartnerIndex}; when none are within
+	 * maxDistanceKm the grid search is widened up to searchLimitKm.
 	 * Returns assigned OrderDTO or null if no available partner.
 	 */
-	@CacheEvict(value = { "ordersByRestaurant", "ordersByUser", "ordersByDeliveryPartner",
-			"orderById" }, allEntries = true)
 	@Transactional
 	public OrderDTO autoAssignDeliveryPartner(Long orderId) {
 		Order order = orderRepository.findById(orderId)
@@ -118,36 +140,25 @@ public class OrderService {
 			throw new ValidationException("Order already assigned to a delivery partner");
 		}
 
-		// 1. Get all available delivery partners
-		List<DeliveryPartner> availablePartners = deliveryPartnerRepository.findByAvailableTrue();
-		if (availablePartners.isEmpty()) {
+		// 1. Candidates: the nearest available partners from the live index
+		Candidates candidates = nearestAvailablePartners(order);
+		if (candidates.partners.isEmpty()) {
 			// Optionally: queue for retry
 			return null;
 		}
+		List<DeliveryPartner> availablePartners = candidates.partners;
+		double[] distances = candidates.distances;
+		int n = availablePartners.size();
 
 		// 2. Score each partner (combine proximity and rating)
 		DeliveryPartner bestPartner = null;
 		double bestScore = -1;
-		for (DeliveryPartner partner : availablePartners) {
+		for (int i = 0; i < n; i++) {
+			DeliveryPartner partner = availablePartners.get(i);
 			double rating = partner.getAverageRating() != null ? partner.getAverageRating() : 0.0;
 			// Compute distance-based proximity score (1 = perfect, 0 = at or beyond
-			// maxDistanceKm)
-			double proximityScore = 0.0;
-			double distanceKm = Double.MAX_VALUE;
-			if (partner.getCurrentLocation() != null && order.getRestaurant() != null
-					&& order.getRestaurant().getAddress() != null
-					&& order.getRestaurant().getAddress().getLatitude() != null
-					&& order.getRestaurant().getAddress().getLongitude() != null
-					&& partner.getCurrentLocation().getLatitude() != null
-					&& partner.getCurrentLocation().getLongitude() != null) {
-				double pLat = partner.getCurrentLocation().getLatitude();
-				double pLon = partner.getCurrentLocation().getLongitude();
-				double rLat = order.getRestaurant().getAddress().getLatitude();
-				double rLon = order.getRestaurant().getAddress().getLongitude();
-				distanceKm = DistanceUtil.haversine(pLat, pLon, rLat, rLon);
-				// proximityScore is 1 when distance = 0, and 0 when distance >= maxDistanceKm
-				proximityScore = 1.0 - Math.min(distanceKm / Math.max(0.0001, maxDistanceKm), 1.0);
-			}
+			// maxDistanceKm, or unknown: the distance is then infinite)
+			double proximityScore = 1.0 - Math.min(distances[i] / Math.max(0.0001, maxDistanceKm), 1.0);
 
 			// Normalize rating to 0..1
 			double ratingScore = Math.max(0.0, Math.min(1.0, rating / MAX_RATING));
@@ -170,8 +181,13 @@ public class OrderService {
 		order.setOrderStatus(OrderStatus.ASSIGNED);
 		bestPartner.setAvailable(false);
 		deliveryPartnerRepository.save(bestPartner);
+		// presence is in-memory and flushed to the row later, so a rollback must
+		// not leave it changed
+		DeliveryPartner assigned = bestPartner;
+		TransactionUtil.afterCommit(() -> presence.setAvailability(assigned, false, null));
 
 		Order updatedOrder = orderRepository.save(order);
+		evictOrderCaches(updatedOrder);
 
 		// Notify delivery partner
 		notificationService.notifyDeliveryPartner(
@@ -184,28 +200,123 @@ public class OrderService {
 		return mapper.toOrderDTO(updatedOrder);
 	}
 
-	@Cacheable(value = "orderById", key = "#id")
+
+	// Up to nearestPartners available partners nearest the restaurant, with
+	// their distances, from the index: within maxDistanceKm, or else within the
+	// smallest doubled radius up to searchLimitKm that has any. When distance
+	// can't be used (index still loading, restaurant unlocated) or nobody is
+	// within searchLimitKm, the best-rated available partners instead.
+	private Candidates nearestAvailablePartners(Order order) {
+		if (!partnerIndex.isReady() || !restaurantLocated(order))
+			return topRatedAvailablePartners(order);
+		double rLat = order.getRestaurant().getAddress().getLatitude();
+		double rLon = order.getRestaurant().getAddress().getLongitude();
+		double radius = maxDistanceKm;
+		DeliveryPartnerIndex.Nearest nearest = partnerIndex.nearest(rLat, rLon, nearestPartners, radius);
+		while (nearest.size() == 0 && radius < searchLimitKm) {
+			radius = Math.min(searchLimitKm, Math.max(radius, 1.0) * 2);
+			nearest = partnerIndex.nearest(rLat, rLon, nearestPartners, radius);
+		}
+		List<Long> ids = Arrays.stream(nearest.getPartnerIds()).boxed().collect(Collectors.toList());
+		Map<Long, DeliveryPartner> byId = deliveryPartnerRepository.findAllById(ids).stream()
+				.collect(Collectors.toMap(DeliveryPartner::getDeliveryPartnerId, p -> p));
+		List<DeliveryPartner> partners = new ArrayList<>(ids.size());
+		double[] distances = new double[ids.size()];
+		for (int i = 0; i < ids.size(); i++) {
+			DeliveryPartner partner = byId.get(ids.get(i));
+			// presence has the final say; the row is written behind
+			if (partner == null || !presence.isAvailable(ids.get(i)))
+				continue;
+			distances[partners.size()] = nearest.getDistancesKm()[i];
+			partners.add(partner);
+		}
+		if (partners.isEmpty())
+			return topRatedAvailablePartners(order);
+		return new Candidates(partners, Arrays.copyOf(distances, partners.size()));
+	}
+
+	// The nearestPartners best-rated of the partners presence reports available
+	// (the DB flag is written behind), distances in one batch when the
+	// restaurant is located
+	private Candidates topRatedAvailablePartners(Order order) {
+		List<Long> availableIds = presence.availablePartnerIds();
+		List<DeliveryPartner> partners = availableIds.isEmpty() ? new ArrayList<>()
+				: deliveryPartnerRepository.findByDeliveryPartnerIdInOrderByAverageRatingDescDeliveryPartnerIdAsc(
+						availableIds, PageRequest.of(0, nearestPartners));
+		int n = partners.size();
+		double[] pLats = new double[n];
+		double[] pLons = new double[n];
+		double[] distances = new double[n];
+		Arrays.fill(distances, Double.POSITIVE_INFINITY);
+		if (restaurantLocated(order)) {
+			boolean[] located = new boolean[n];
+			for (int i = 0; i < n; i++) {
+				DeliveryPartner partner = partners.get(i);
+				// the last heartbeat is newer than the row's location
+				PartnerPresenceStore.Presence p = presence.get(partner.getDeliveryPartnerId());
+				if (p != null && p.getLatitude() != null && p.getLongitude() != null) {
+					pLats[i] = p.getLatitude();
+					pLons[i] = p.getLongitude();
+					located[i] = true;
+				} else if (partner.getCurrentLocation() != null && partner.getCurrentLocation().getLatitude() != null
+						&& partner.getCurrentLocation().getLongitude() != null) {
+					pLats[i] = partner.getCurrentLocation().getLatitude();
+					pLons[i] = partner.getCurrentLocation().getLongitude();
+					located[i] = true;
+				}
+			}
+			// partners at or beyond maxDistanceKm score 0 for proximity, so their
+			// exact distance is not needed
+			DistanceUtil.haversineWithin(order.getRestaurant().getAddress().getLatitude(),
+					order.getRestaurant().getAddress().getLongitude(), pLats, pLons, n, maxDistanceKm, distances);
+			for (int i = 0; i < n; i++) {
+				if (!located[i])
+					distances[i] = Double.POSITIVE_INFINITY;
+			}
+		}
+		return new Candidates(partners, distances);
+	}
+
+	private static boolean restaurantLocated(Order order) {
+		return order.getRestaurant() != null && order.getRestaurant().getAddress() != null
+				&& order.getRestaurant().getAddress().getLatitude() != null
+				&& order.getRestaurant().getAddress().getLongitude() != null;
+	}
+
+	// Partners to score for one order; distances[i] is +Infinity when unknown
+	// or beyond maxDistanceKm
+	private static class Candidates {
+		final List<DeliveryPartner> partners;
+		final double[] distances;
+
+		Candidates(List<DeliveryPartner> partners, double[] distances) {
+			this.partners = partners;
+			this.distances = distances;
+		}
+	}
+
+	@Cacheable(value = "orderById", key = "#id", sync = true)
 	public OrderDTO getOrderById(Long id) {
 		Order order = orderRepository.findById(id)
 				.orElseThrow(() -> new ResourceNotFoundException("Order not found with id: " + id));
 		return mapper.toOrderDTO(order);
 	}
 
-	@Cacheable(value = "ordersByUser", key = "#userId")
+	@Cacheable(value = "ordersByUser", key = "#userId", sync = true)
 	public List<OrderDTO> getOrdersByUserId(Long userId) {
 		return orderRepository.findByUser_UserId(userId).stream()
 				.map(mapper::toOrderDTO)
 				.collect(Collectors.toList());
 	}
 
-	@Cacheable(value = "ordersByRestaurant", key = "#restaurantId")
+	@Cacheable(value = "ordersByRestaurant", key = "@orderCacheInvalidator.restaurantOrdersKey(#restaurantId, '')")
 	public List<OrderDTO> getOrdersByRestaurantId(Long restaurantId) {
 		return orderRepository.findByRestaurant_RestaurantId(restaurantId).stream()
 				.map(mapper::toOrderDTO)
 				.collect(Collectors.toList());
 	}
 
-	@Cacheable(value = "ordersByRestaurant", key = "#restaurantId + '-' + #page + '-' + #limit")
+	@Cacheable(value = "ordersByRestaurant", key = "@orderCacheInvalidator.restaurantOrdersKey(#restaurantId, #page + '-' + #limit)")
 	public Page<OrderDTO> getOrdersByRestaurantId(Long restaurantId, int page, int limit) {
 		Page<Order> orders = orderRepository.findByRestaurant_RestaurantId(
 				restaurantId,
@@ -213,7 +324,7 @@ public class OrderService {
 		return orders.map(mapper::toOrderDTO);
 	}
 
-	@Cacheable(value = "ordersByRestaurant", key = "#restaurantId + '-' + (#status != null ? #status.name() : 'ALL') + '-' + #page + '-' + #limit")
+	@Cacheable(value = "ordersByRestaurant", key = "@orderCacheInvalidator.restaurantOrdersKey(#restaurantId, (#status != null ? #status.name() : 'ALL') + '-' + #page + '-' + #limit)")
 	public Page<OrderDTO> getOrdersByRestaurantId(Long restaurantId, OrderStatus status, int page, int limit) {
 		PageRequest pageable = PageRequest.of(page, limit, Sort.by(Sort.Direction.DESC, "orderTime"));
 		Page<Order> orders;
@@ -232,8 +343,6 @@ public class OrderService {
 				.collect(Collectors.toList());
 	}
 
-	@CacheEvict(value = { "ordersByRestaurant", "ordersByUser", "ordersByDeliveryPartner",
-			"orderById" }, allEntries = true)
 	@Transactional
 	public OrderDTO updateOrderStatus(Long id, OrderStatus status) {
 		Order order = orderRepository.findById(id)
@@ -272,10 +381,12 @@ public class OrderService {
 			if (dp != null) {
 				dp.setAvailable(true);
 				deliveryPartnerRepository.save(dp);
+				TransactionUtil.afterCommit(() -> presence.setAvailability(dp, true, null));
 			}
 		}
 
 		Order updatedOrder = orderRepository.save(order);
+		evictOrderCaches(updatedOrder);
 		// 2. Notify user about the specific order status update
 		String notifType = "ORDER_" + (status != null ? status.name() : "STATUS_UPDATE");
 		notificationService.notifyUser(
@@ -288,8 +399,6 @@ public class OrderService {
 		return mapper.toOrderDTO(updatedOrder);
 	}
 
-	@CacheEvict(value = { "ordersByRestaurant", "ordersByUser", "ordersByDeliveryPartner",
-			"orderById" }, allEntries = true)
 	@Transactional
 	public OrderDTO assignDeliveryPartner(Long orderId, Long deliveryPartnerId) {
 		Order order = orderRepository.findById(orderId)
@@ -303,10 +412,16 @@ public class OrderService {
 				throw new ValidationException("Delivery partner is not available");
 			}
 		}
+		// the previous partner's list loses this order
+		Long previousPartnerId = order.getDeliveryPartner() != null
+				? order.getDeliveryPartner().getDeliveryPartnerId()
+				: null;
 		order.setDeliveryPartner(deliveryPartner);
 		deliveryPartner.setAvailable(false);
 		deliveryPartnerRepository.save(deliveryPartner);
+		TransactionUtil.afterCommit(() -> presence.setAvailability(deliveryPartner, false, null));
 		Order updatedOrder = orderRepository.save(order);
+		evictOrderCaches(updatedOrder, previousPartnerId);
 
 		// 3. Notify delivery partner when restaurant assigns order
 		notificationService.notifyDeliveryPartner(
@@ -319,13 +434,12 @@ public class OrderService {
 		return mapper.toOrderDTO(updatedOrder);
 	}
 
-	@CacheEvict(value = { "ordersByRestaurant", "ordersByUser", "ordersByDeliveryPartner",
-			"orderById" }, allEntries = true)
 	@Transactional
 	public void deliveryPartnerAcceptOrder(Long orderId, Long deliveryPartnerId) {
 		Order order = orderRepository.findById(orderId)
 				.orElseThrow(() -> new ResourceNotFoundException("Order not found with id: " + orderId));
 		// ... update order status, etc. as needed
+		evictOrderCaches(order, deliveryPartnerId);
 		// 4. Notify customer when delivery partner accepts order
 		notificationService.notifyUser(
 				order.getUser() != null ? order.getUser().getUserId() : null,
@@ -334,4 +448,17 @@ public class OrderService {
 						"Your order #" + order.getOrderId() + " has been accepted by delivery partner.",
 						order.getUser() != null ? order.getUser().getUserId() : null));
 	}
-}
\ No newline at end of file
+
+	// Evict only the cached order views this order appears in (its own entry and
+	// its user's, restaurant's and delivery partners' lists), after commit
+	private void evictOrderCaches(Order order, Long... otherDeliveryPartnerIds) {
+		Long[] deliveryPartnerIds = Arrays.copyOf(otherDeliveryPartnerIds, otherDeliveryPartnerIds.length + 1);
+		deliveryPartnerIds[otherDeliveryPartnerIds.length] = order.getDeliveryPartner() != null
+				? order.getDeliveryPartner().getDeliveryPartnerId()
+				: null;
+		orderCacheInvalidator.evictAfterCommit(order.getOrderId(),
+				order.getUser() != null ? order.getUser().getUserId() : null,
+				order.getRestaurant() != null ? order.getRestaurant().getRestaurantId() : null,
+				deliveryPartnerIds);
+	}
+}
@@ -1,43 +1,88 @@
 package com.tka.feasto.service;
 
+import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
 import java.util.stream.Collectors;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.cache.annotation.Caching;
+import org.springframework.context.event.EventListener;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.multipart.MultipartFile;
 
+import io.micrometer.core.instrument.MeterRegistry;
+
+import com.tka.feasto.cache.NearbySearchCache;
+import com.tka.feasto.cache.RestaurantTileCache;
+import com.tka.feasto.config.QueryCountInspector;
+import com.tka.feasto.dto.DishHitDTO;
+import com.tka.feasto.dto.DishSearchResultDTO;
+import com.tka.feasto.dto.MapTileDTO;
+import com.tka.feasto.dto.MenuChangesDTO;
 import com.tka.feasto.dto.MenuItemDTO;
+import com.tka.feasto.dto.NearbyCursorPageDTO;
 import com.tka.feasto.dto.RestaurantAnalyticsDTO;
 import com.tka.feasto.dto.RestaurantDTO;
+import com.tka.feasto.dto.SuggestionDTO;
+import com.tka.feasto.dto.TileClusterDTO;
+import com.tka.feasto.entity.Location;
 import com.tka.feasto.entity.MenuItem;
+import com.tka.feasto.entity.MenuItemChange;
 import com.tka.feasto.entity.Restaurant;
+import com.tka.feasto.enums.MenuChangeType;
 import com.tka.feasto.enums.Role;
 import com.tka.feasto.exception.ResourceNotFoundException;
 import com.tka.feasto.exception.ValidationException;
 import com.tka.feasto.exception.UnauthorizedException;
+import com.tka.feasto.index.DeliveryZoneIndex;
+import com.tka.feasto.index.DishSearchIndex;
+import com.tka.feasto.index.NearbyCandidates;
+import com.tka.feasto.index.RandomRestaurantPool;
+import com.tka.feasto.index.RestaurantFilterIndex;
+import com.tka.feasto.index.RestaurantGeoIndex;
+import com.tka.feasto.index.RestaurantNameIndex;
+import com.tka.feasto.index.RestaurantTileIndex;
+import com.tka.feasto.index.SuggestionTrie;
 import com.tka.feasto.mapper.CustomMapper;
+import com.tka.feasto.repository.MenuItemChangeRepository;
 import com.tka.feasto.repository.MenuItemRepository;
 import com.tka.feasto.repository.OrderRepository;
 import com.tka.feasto.repository.RestaurantRepository;
 import com.tka.feasto.repository.ReviewRepository;
+import com.tka.feasto.util.DistanceUtil;
+import com.tka.feasto.util.TileMath;
+import com.tka.feasto.util.TopKSelector;
+import com.tka.feasto.util.TransactionUtil;
 import com.tka.feasto.util.ValidationUtil;
 
 @Service
 public class RestaurantService {
 
+	private static final Logger log = LoggerFactory.getLogger(RestaurantService.class);
+
 	@Autowired
 	private CloudinaryService cloudinaryService;
 
@@ -50,29 +95,113 @@ public class RestaurantService {
 	@Autowired
 	private MenuItemRepository menuItemRepository;
 
+	@Autowired
+	private MenuItemChangeRepository menuItemChangeRepository;
+
 	@Autowired
 	private OrderRepository orderRepository;
 
 	@Autowired
 	private ReviewRepository reviewRepository;
 
+	@Autowired
+	private RestaurantGeoIndex geoIndex;
+
+	@Autowired
+	private RandomRestaurantPool randomPool;
+
+	@Autowired
+	private RestaurantNameIndex nameIndex;
+
+	@Autowired
+	private SuggestionTrie suggestionTrie;
+
+	@Autowired
+	private DishSearchIndex dishIndex;
+
+	@Autowired
+	private RestaurantFilterIndex filterIndex;
+
+	@Autowired
+	private RestaurantTileIndex tileIndex;
+
+	@Autowired
+	private RestaurantTileCache tileCache;
+
+	@Autowired
+	private DeliveryZoneIndex zoneIndex;
+
+	@Autowired
+	private NearbySearchCache nearbySearchCache;
+
+	@Autowired
+	private CacheManager cacheManager;
+
+	@Autowired
+	private MeterRegistry meterRegistry;
+
+	// Serve /nearby from geohash-cell candidates; false pages straight from the
+	// repository on every call
+	@Value("${feasto.nearby.cache.enabled:true}")
+	private boolean nearbyCellCacheEnabled;
+
+	// Drop nearby results whose delivery polygon excludes the user's location
+	@Value("${feasto.nearby.deliveryZones.enabled:true}")
+	private boolean deliveryZonesEnabled;
+
+	// Names (most shared trigrams first) scored by edit distance in fuzzy search
+	@Value("${feasto.search.fuzzy.shortlist:200}")
+	private int fuzzyShortlistSize;
+
+	// Markers per tile read from the database while the tile index loads
+	@Value("${feasto.tiles.fallbackLimit:200}")
+	private int tileFallbackLimit;
+
 	@Value("${img.max.size}")
 	private double maxFileSizeMB;
 
+	// ?since= re-reads changes this close to the cursor's own, covering change
+	// ids that committed out of order
+	@Value("${feasto.menu.changes.lookbackSeconds:60}")
+	private long menuChangesLookbackSeconds;
+
+	// Change-log rows older than this are pruned; older cursors get the full menu
+	@Value("${feasto.menu.changes.retentionDays:30}")
+	private long menuChangesRetentionDays;
+
 	// EntityManager no longer required here; DB logic moved to repository
 	// implementation
 
-	@CacheEvict(value = "nearbyRestaurantsCache", allEntries = true)
+	// Load active restaurants into the in-memory geo, name and dish indexes.
+	// Nearby search uses the DB bounding-box query, and fuzzy name search scores
+	// every active restaurant, until this has completed.
+	@EventListener(ApplicationReadyEvent.class)
+	public void buildGeoIndex() {
+		List<Restaurant> active = restaurantRepository.findByIsActiveTrue();
+		geoIndex.rebuild(active);
+		nameIndex.rebuild(active);
+		rebuildDishIndex(active);
+		tileIndex.rebuild(active);
+		zoneIndex.rebuild(active);
+	}
+
+	private void rebuildDishIndex(List<Restaurant> active) {
+		List<MenuItemDTO> items = menuItemRepository.findAllOfActiveRestaurants().stream()
+				.map(mapper::toMenuItemDTO).collect(Collectors.toList());
+		dishIndex.rebuild(active, items);
+	}
+
 	public RestaurantDTO registerRestaurant(RestaurantDTO restaurantDTO) {
 		Restaurant restaurant = mapper.toRestaurant(restaurantDTO);
 		if (restaurant.getRole() == null) {
 			restaurant.setRole(Role.RESTAURANT_OWNER);
 		}
+		restaurant.setDeliveryZone(validDeliveryZone(restaurant.getDeliveryZone()));
 		Restaurant savedRestaurant = restaurantRepository.save(restaurant);
+		indexRestaurant(savedRestaurant);
 		return mapper.toRestaurantDTO(savedRestaurant);
 	}
 
-	@CacheEvict(value = "nearbyRestaurantsCache", allEntries = true)
 	public RestaurantDTO registerRestaurant(RestaurantDTO restaurantDTO, MultipartFile image) {
 		if (image != null && !image.isEmpty()) {
 			ValidationUtil.validateImage(image, maxFileSizeMB);
@@ -93,18 +222,33 @@ public class RestaurantService {
 		if (restaurant.getRole() == null) {
 			restaurant.setRole(Role.RESTAURANT_OWNER);
 		}
+		restaurant.setDeliveryZone(validDeliveryZone(restaurant.getDeliveryZone()));
 		Restaurant savedRestaurant = restaurantRepository.save(restaurant);
+		indexRestaurant(savedRestaurant);
 		return mapper.toRestaurantDTO(savedRestaurant);
 	}
 
-	@Cacheable(value = "restaurantById", key = "#id")  
+	// Add a newly registered restaurant to every in-memory index and drop the
+	// nearby cells it now belongs to
+	private void indexRestaurant(Restaurant restaurant) {
+		geoIndex.upsert(restaurant);
+		nameIndex.upsert(restaurant);
+		dishIndex.upsertRestaurant(restaurant);
+		filterIndex.upsert(restaurant);
+		tileIndex.upsert(restaurant);
+		zoneIndex.upsert(restaurant);
+		randomPool.add(restaurant);
+		evictNearbyCells(restaurant);
+	}
+
+	@Cacheable(value = "restaurantById", key = "#id", sync = true)
 	public RestaurantDTO getRestaurantById(Long id) {
 		Restaurant restaurant = restaurantRepository.findById(id)
 				.orElseThrow(() -> new ResourceNotFoundException("Restaurant not found with id: " + id));
 		return mapper.toRestaurantDTO(restaurant);
 	}
 
-	@Cacheable(value = "restaurantsAll")
+	@Cacheable(value = "restaurantsAll", sync = true)
 	public List<RestaurantDTO> getAllRestaurants() {
 		return restaurantRepository.findAll().stream().map(mapper::toRestaurantDTO).collect(Collectors.toList());
 	}
@@ -122,8 +266,9 @@ public class RestaurantService {
 
 	@Caching(evict = {
 			@CacheEvict(value = "menuItemsByRestaurant", key = "#restaurantId"),
-			@CacheEvict(value = "nearbyRestaurantsCache", allEntries = true)
+			@CacheEvict(value = "restaurantCards", key = "#restaurantId")
 	})
+	@Transactional
 	public MenuItemDTO addMenuItem(Long restaurantId, MenuItemDTO menuItemDTO,
 			MultipartFile image) {
 		Restaurant restaurant = restaurantRepository.findById(restaurantId)
@@ -148,14 +293,20 @@ public class RestaurantService {
 		MenuItem menuItem = mapper.toMenuItem(menuItemDTO);
 		menuItem.setRestaurant(restaurant);
 		MenuItem savedMenuItem = menuItemRepository.save(menuItem);
+		recordMenuChange(restaurantId, savedMenuItem.getMenuItemId(), MenuChangeType.ADDED);
+		// Mapped once: the dish index and the response share this instance, which
+		// the controller only serialises
+		MenuItemDTO saved = mapper.toMenuItemDTO(savedMenuItem);
+		TransactionUtil.afterCommit(() -> dishIndex.upsert(saved));
 
-		return mapper.toMenuItemDTO(savedMenuItem);
+		return saved;
 	}
 
 	@Caching(evict = {
 			@CacheEvict(value = "menuItemsByRestaurant", key = "#restaurantId"),
-			@CacheEvict(value = "nearbyRestaurantsCache", allEntries = true)
+			@CacheEvict(value = "restaurantCards", key = "#restaurantId")
 	})
+	@Transactional
 	public MenuItemDTO updateMenuItem(Long restaurantId, Long menuItemId, MenuItemDTO menuItemDTO,
 			MultipartFile image) {
 		MenuItem menuItem = menuItemRepository.findById(menuItemId)
@@ -163,6 +314,7 @@ public class RestaurantService {
 		if (!menuItem.getRestaurant().getRestaurantId().equals(restaurantId)) {
 			throw new ValidationException("MenuItem does not belong to restaurant: " + restaurantId);
 		}
+		MenuItemDTO before = mapper.toMenuItemDTO(menuItem);
 		// If an image file is provided, upload it first, then delete previous image
 		// (best-effort)
 		if (image != null && !image.isEmpty()) {
@@ -219,14 +371,18 @@ public class RestaurantService {
 			// else: no new image and no explicit removal request -> keep existing image
 		}
 		MenuItem updatedMenuItem = menuItemRepository.save(menuItem);
+		MenuItemDTO after = mapper.toMenuItemDTO(updatedMenuItem);
+		recordMenuChange(restaurantId, menuItemId, menuChangeType(before, after));
+		TransactionUtil.afterCommit(() -> dishIndex.upsert(after));
 
-		return mapper.toMenuItemDTO(updatedMenuItem);
+		return after;
 	}
 
 	@Caching(evict = {
 			@CacheEvict(value = "menuItemsByRestaurant", key = "#restaurantId"),
-			@CacheEvict(value = "nearbyRestaurantsCache", allEntries = true)
+			@CacheEvict(value = "restaurantCards", key = "#restaurantId")
 	})
+	@Transactional
 	public void deleteMenuItem(Long restaurantId, Long menuItemId) {
 		MenuItem menuItem = menuItemRepository.findById(menuItemId)
 				.orElseThrow(() -> new ResourceNotFoundException("MenuItem not found with id: " + menuItemId));
@@ -239,87 +395,468 @@ public class RestaurantService {
 			cloudinaryService.deleteImage(menuItem.getCloudinaryPublicId());
 		}
 		menuItemRepository.delete(menuItem);
+		recordMenuChange(restaurantId, menuItemId, MenuChangeType.REMOVED);
+		TransactionUtil.afterCommit(() -> dishIndex.remove(menuItemId));
 
 		// No notification sent for menu deletion (removed non-essential notifications)
 	}
 
 	@Transactional(readOnly = true)
+	@Cacheable(value = "menuItemsByRestaurant", key = "#restaurantId", sync = true)
 	public List<MenuItemDTO> getMenuItemsByRestaurantId(Long restaurantId) {
 		return menuItemRepository.findByRestaurant_RestaurantId(restaurantId).stream().map(mapper::toMenuItemDTO)
 				.collect(Collectors.toList());
 	}
 
+	/**
+	 * Menu delta since a client's version (a change id from a previous sync) or,
+	 * failing that, since a timestamp. With neither, or with a cursor older than
+	 * the retained change log, returns the whole menu and the current version to
+	 * sync from next time. Items are returned in their current state, so
+	 * replaying a delta is idempotent.
+	 *
+	 * Change ids are allocated at insert, not at commit, so a lower id can become
+	 * visible after a higher one was already handed out. ?since= therefore also
+	 * re-reads every change logged within menuChangesLookbackSeconds of the
+	 * cursor's own change; the overlap is harmless because of the above.
+	 */
+	@Transactional(readOnly = true)
+	public MenuChangesDTO getMenuChanges(Long restaurantId, Long since, LocalDateTime sinceTime) {
+		if (!restaurantRepository.existsById(restaurantId)) {
+			throw new ResourceNotFoundException("Restaurant not found with id: " + restaurantId);
+		}
+		LocalDateTime retainedFrom = LocalDateTime.now().minusDays(menuChangesRetentionDays);
+		LocalDateTime from = null;
+		if (since != null && since > 0) {
+			MenuItemChange cursor = menuItemChangeRepository.findById(since).orElse(null);
+			if (cursor != null && restaurantId.equals(cursor.getRestaurantId()))
+				from = cursor.getChangedAt().minusSeconds(menuChangesLookbackSeconds);
+		} else if (since == null && sinceTime != null && sinceTime.isAfter(retainedFrom)) {
+			from = sinceTime;
+		}
+		if (from == null) {
+			// no cursor, version 0, or a cursor the log no longer covers
+			Long version = menuItemChangeRepository.findLatestChangeId(restaurantId);
+			return new MenuChangesDTO(restaurantId, version, true, getMenuItemsByRestaurantId(restaurantId),
+					Collections.emptyList());
+		}
+		List<MenuItemChange> changes = menuItemChangeRepository.findChangesSince(restaurantId,
+				since != null ? since : Long.MAX_VALUE, from);
+		// latest change per item wins
+		Map<Long, MenuChangeType> latest = new LinkedHashMap<>();
+		long version = since != null ? since : 0L;
+		for (MenuItemChange change : changes) {
+			latest.remove(change.getMenuItemId());
+			latest.put(change.getMenuItemId(), change.getChangeType());
+			version = Math.max(version, change.getChangeId());
+		}
+		if (changes.isEmpty() && since == null) {
+			version = menuItemChangeRepository.findLatestChangeId(restaurantId);
+		}
+		List<Long> removed = new ArrayList<>();
+		List<Long> changedIds = new ArrayList<>();
+		for (Map.Entry<Long, MenuChangeType> entry : latest.entrySet()) {
+			if (entry.getValue() == MenuChangeType.REMOVED)
+				removed.add(entry.getKey());
+			else
+				changedIds.add(entry.getKey());
+		}
+		List<MenuItemDTO> changed = changedIds.isEmpty() ? Collections.emptyList()
+				: menuItemRepository.findAllById(changedIds).stream().map(mapper::toMenuItemDTO)
+						.collect(Collectors.toList());
+		return new MenuChangesDTO(restaurantId, version, false, changed, removed);
+	}
+
+	// Drop change-log rows past the retention window; cursors into the pruned
+	// range fall back to a full menu
+	@Scheduled(fixedDelayString = "${feasto.menu.changes.pruneMs:86400000}")
+	public void pruneMenuChanges() {
+		int pruned = menuItemChangeRepository
+				.deleteByChangedAtBefore(LocalDateTime.now().minusDays(menuChangesRetentionDays));
+		if (pruned > 0)
+			log.info("Pruned {} menu change rows older than {} days", pruned, menuChangesRetentionDays);
+	}
+
+	// Change-log row behind the menu delta sync; same transaction as the item write
+	private void recordMenuChange(Long restaurantId, Long menuItemId, MenuChangeType type) {
+		MenuItemChange change = new MenuItemChange();
+		change.setRestaurantId(restaurantId);
+		change.setMenuItemId(menuItemId);
+		change.setChangeType(type);
+		menuItemChangeRepository.save(change);
+	}
+
+	// TOGGLED when availability is the only field that changed
+	private static MenuChangeType menuChangeType(MenuItemDTO before, MenuItemDTO after) {
+		if (Objects.equals(before.getIsAvailable(), after.getIsAvailable()))
+			return MenuChangeType.UPDATED;
+		before.setIsAvailable(after.getIsAvailable());
+		return before.equals(after) ? MenuChangeType.TOGGLED : MenuChangeType.UPDATED;
+	}
+
 	// New: paginated nearby restaurants based on lat/lon. Returns RestaurantDTOs
 	// with distanceKm and a few special menu items.
-	@Cacheable(value = "nearbyRestaurantsCache", key = "T(java.lang.String).format('%s:%s:%s:%s:%s:%s', #lat, #lon, #page, #limit, #sort, #maxDistanceKm)")
+	//
+	// Candidates come from the geohash-cell cache (shared by every user in the
+	// same cell) and are re-ranked here for the caller's exact position; the
+	// page is then built from per-restaurant listing cards.
 	public Page<RestaurantDTO> findNearbyRestaurants(double lat, double lon, int page,
 			int limit, String sort, double maxDistanceKm) {
 		Pageable pageable = PageRequest.of(page, limit);
-		Page<Object[]> pageObjs = restaurantRepository.findNearbyWithDistance(lat, lon,
-				pageable, sort, maxDistanceKm);
+		long statementsBefore = QueryCountInspector.currentCount();
+		if (!nearbyCellCacheEnabled) {
+			Page<Object[]> pageObjs = restaurantRepository.findNearbyWithDistance(lat, lon,
+					pageable, sort, maxDistanceKm);
+			List<RestaurantDTO> dtos = toNearbyDTOs(pageObjs.getContent());
+			recordListingQueries("nearby", statementsBefore);
+			return new PageImpl<>(dtos, pageable, pageObjs.getTotalElements());
+		}
+
+		double radiusKm = maxDistanceKm > 0 ? maxDistanceKm : 50.0;
+		NearbyCandidates candidates = nearbySearchCache.candidates(lat, lon, radiusKm);
+		boolean byDistance = "distance".equals(sort);
+		int start = (int) pageable.getOffset();
+		double[] distances = new double[candidates.size()];
+		int within = DistanceUtil.haversineWithin(lat, lon, candidates.getLatitudes(), candidates.getLongitudes(),
+				candidates.size(), radiusKm, distances);
+		DeliveryZoneIndex.Coverage coverage = deliveryCoverage(lat, lon);
+		TopKSelector top = new TopKSelector(Math.min(within, start + limit));
+		int total = 0;
+		for (int i = 0; i < candidates.size(); i++) {
+			double d = distances[i];
+			if (d > radiusKm)
+				continue; // cell superset: outside this user's radius
+			if (coverage != null && !coverage.allows(candidates.getRestaurantIds()[i]))
+				continue; // outside the restaurant's delivery zone
+			total++;
+			top.offer(i, byDistance ? d : -candidates.getRatings()[i], candidates.getRestaurantIds()[i]);
+		}
+		int[] ranked = top.drainSorted();
 
+		List<Long> pageIds = new ArrayList<>();
+		for (int i = start; i < ranked.length; i++) {
+			pageIds.add(candidates.getRestaurantIds()[ranked[i]]);
+		}
+		Map<Long, RestaurantDTO> cards = listingCards(pageIds);
 		List<RestaurantDTO> dtos = new ArrayList<>();
-		for (Object[] row : pageObjs.getContent()) {
-			// row[0] = Restaurant entity, row[1] = Double distanceKm
+		for (int i = start; i < ranked.length; i++) {
+			RestaurantDTO card = cards.get(candidates.getRestaurantIds()[ranked[i]]);
+			if (card == null)
+				continue;
+			RestaurantDTO dto = mapper.copyRestaurantDTO(card);
+			dto.setDistanceKm(distances[ranked[i]]);
+			dtos.add(dto);
+		}
+		recordListingQueries("nearby", statementsBefore);
+		return new PageImpl<>(dtos, pageable, total);
+	}
+
+	// Listing cards (restaurant DTO with special items, no distance) by id. Cached
+	// per restaurant in "restaurantCards" so a menu change evicts a single entry;
+	// callers must copy a card before modifying it.
+	private Map<Long, RestaurantDTO> listingCards(List<Long> restaurantIds) {
+		Cache cache = cacheManager.getCache("restaurantCards");
+		Map<Long, RestaurantDTO> cards = new HashMap<>();
+		List<Long> missing = new ArrayList<>();
+		for (Long id : restaurantIds) {
+			RestaurantDTO card = cache != null ? cache.get(id, RestaurantDTO.class) : null;
+			if (card != null)
+				cards.put(id, card);
+			else
+				missing.add(id);
+		}
+		if (!missing.isEmpty()) {
+			List<RestaurantDTO> loaded = new ArrayList<>();
+			for (Restaurant r : restaurantRepository.findAllById(missing)) {
+				RestaurantDTO card = mapper.toRestaurantDTO(r);
+				card.setDeliveryZone(null); // listings don't need the polygon
+				loaded.add(card);
+			}
+			attachSpecialMenuItems(loaded);
+			for (RestaurantDTO card : loaded) {
+				if (cache != null)
+					cache.put(card.getRestaurantId(), card);
+				cards.put(card.getRestaurantId(), card);
+			}
+		}
+		return cards;
+	}
+
+	// A new or moved restaurant only affects the nearby cells that can reach it
+	private void evictNearbyCells(Restaurant restaurant) {
+		if (restaurant.getAddress() != null) {
+			nearbySearchCache.evictCellsCovering(restaurant.getAddress().getLatitude(),
+					restaurant.getAddress().getLongitude());
+			tileCache.evictTilesCovering(restaurant.getAddress().getLatitude(),
+					restaurant.getAddress().getLongitude());
+		}
+	}
+
+	// Which restaurants deliver to (lat, lon); null (no filtering) when zone
+	// filtering is off or the zone index has not loaded at startup yet
+	private DeliveryZoneIndex.Coverage deliveryCoverage(double lat, double lon) {
+		if (!deliveryZonesEnabled || !zoneIndex.isReady())
+			return null;
+		return zoneIndex.coverage(lat, lon);
+	}
+
+	// Set or clear (empty list) a restaurant's delivery polygon
+	@Caching(evict = {
+			@CacheEvict(value = "restaurantById", key = "#restaurantId"),
+			@CacheEvict(value = "restaurantCards", key = "#restaurantId")
+	})
+	public RestaurantDTO updateDeliveryZone(Long restaurantId, List<Location> zone) {
+		Restaurant restaurant = restaurantRepository.findById(restaurantId)
+				.orElseThrow(() -> new ResourceNotFoundException("Restaurant not found with id: " + restaurantId));
+		restaurant.setDeliveryZone(validDeliveryZone(zone));
+		Restaurant saved = restaurantRepository.save(restaurant);
+		zoneIndex.upsert(saved);
+		return mapper.toRestaurantDTO(saved);
+	}
+
+	// null for "no zone"; otherwise at least three valid vertices, with a
+	// repeated closing vertex dropped
+	private List<Location> validDeliveryZone(List<Location> zone) {
+		if (zone == null || zone.isEmpty())
+			return null;
+		List<Location> points = new ArrayList<>(zone);
+		for (Location p : points) {
+			if (p == null || p.getLatitude() == null || p.getLongitude() == null
+					|| Math.abs(p.getLatitude()) > 90 || Math.abs(p.getLongitude()) > 180) {
+				throw new ValidationException("Delivery zone vertices need a valid latitude and longitude");
+			}
+		}
+		if (points.size() > 1 && points.get(0).equals(points.get(points.size() - 1))) {
+			points.remove(points.size() - 1);
+		}
+		if (points.size() < 3) {
+			throw new ValidationException("Delivery zone needs at least 3 vertices");
+		}
+		return points;
+	}
+
+	// Cursor-based nearby listing for infinite scroll: ordered by (distance,
+	// restaurantId) and resumed after the last row the client saw, so deep
+	// scrolling never pays for OFFSET paging.
+	public NearbyCursorPageDTO findNearbyRestaurantsAfter(double lat, double lon, int limit, double maxDistanceKm,
+			Double afterDistanceKm, Long afterRestaurantId) {
+		limit = Math.max(1, limit);
+		long statementsBefore = QueryCountInspector.currentCount();
+		DeliveryZoneIndex.Coverage coverage = deliveryCoverage(lat, lon);
+		// Zone filtering runs before the page is cut: batches of limit + 1 rows are
+		// read after the last row scanned until one more row than the page passes
+		// (so another slice exists) or the radius runs out
+		List<Object[]> kept = new ArrayList<>();
+		Double scanD = afterDistanceKm;
+		Long scanId = afterRestaurantId;
+		while (true) {
+			List<Object[]> rows = restaurantRepository.findNearbyAfter(lat, lon, maxDistanceKm, scanD, scanId,
+					limit + 1);
+			for (Object[] row : rows) {
+				if (coverage == null || coverage.allows(((Restaurant) row[0]).getRestaurantId()))
+					kept.add(row);
+			}
+			if (kept.size() > limit || rows.size() <= limit)
+				break;
+			Object[] scanned = rows.get(rows.size() - 1);
+			scanD = ((Number) scanned[1]).doubleValue();
+			scanId = ((Restaurant) scanned[0]).getRestaurantId();
+		}
+		boolean hasMore = kept.size() > limit;
+		List<Object[]> slice = hasMore ? kept.subList(0, limit) : kept;
+		Object[] last = slice.isEmpty() ? null : slice.get(slice.size() - 1);
+		List<RestaurantDTO> dtos = toNearbyDTOs(slice);
+		recordListingQueries("nearbyCursor", statementsBefore);
+		return new NearbyCursorPageDTO(dtos,
+				hasMore && last != null ? ((Number) last[1]).doubleValue() : null,
+				hasMore && last != null ? ((Restaurant) last[0]).getRestaurantId() : null,
+				hasMore);
+	}
+
+	// row[0] = Restaurant entity, row[1] = Double distanceKm
+	private List<RestaurantDTO> toNearbyDTOs(List<Object[]> rows) {
+		List<RestaurantDTO> dtos = new ArrayList<>(rows.size());
+		for (Object[] row : rows) {
 			Restaurant r = (Restaurant) row[0];
 			Number distNum = (Number) row[1];
 			RestaurantDTO dto = mapper.toRestaurantDTO(r);
+			dto.setDeliveryZone(null);
 			dto.setDistanceKm(distNum != null ? distNum.doubleValue() : null);
-			List<MenuItemDTO> specials = menuItemRepository.findByRestaurant_RestaurantId(r.getRestaurantId())
-					.stream()
-					.filter(m -> Boolean.TRUE.equals(m.getIsAvailable()))
-					.limit(3)
-					.map(mapper::toMenuItemDTO)
-					.collect(Collectors.toList());
-			dto.setSpecialMenuItems(specials);
 			dtos.add(dto);
 		}
+		attachSpecialMenuItems(dtos);
+		return dtos;
+	}
+
+	// Attach the first three available menu items of each restaurant as its
+	// specials, fetched for the whole page in a single query
+	// will change later to use a "isSpecial" flag or depend on frequently ordered
+	private void attachSpecialMenuItems(List<RestaurantDTO> dtos) {
+		if (dtos.isEmpty())
+			return;
+		List<Long> ids = dtos.stream().map(RestaurantDTO::getRestaurantId).collect(Collectors.toList());
+		Map<Long, List<MenuItemDTO>> specials = specialMenuItems(ids);
+		for (RestaurantDTO dto : dtos) {
+			dto.setSpecialMenuItems(specials.getOrDefault(dto.getRestaurantId(), Collections.emptyList()));
+		}
+	}
+
+	private Map<Long, List<MenuItemDTO>> specialMenuItems(Collection<Long> restaurantIds) {
+		Map<Long, List<MenuItemDTO>> byRestaurant = new HashMap<>();
+		// row: menu_item_id, restaurant_id, name, description, price, category,
+		// rating, image_url, cloudinary_public_id
+		for (Object[] row : menuItemRepository.findTopAvailableByRestaurantIds(restaurantIds, 3)) {
+			MenuItemDTO item = new MenuItemDTO();
+			item.setMenuItemId(((Number) row[0]).longValue());
+			item.setRestaurantId(((Number) row[1]).longValue());
+			item.setName((String) row[2]);
+			item.setDescription((String) row[3]);
+			item.setPrice(row[4] != null ? ((Number) row[4]).doubleValue() : null);
+			item.setCategory((String) row[5]);
+			item.setIsAvailable(true);
+			item.setRating(row[6] != null ? ((Number) row[6]).doubleValue() : null);
+			item.setImageUrl((String) row[7]);
+			item.setCloudinaryPublicId((String) row[8]);
+			byRestaurant.computeIfAbsent(item.getRestaurantId(), k -> new ArrayList<>()).add(item);
+		}
+		return byRestaurant;
+	}
+
+	// Records how many SQL statements a listing endpoint issued for one page
+	private void recordListingQueries(String endpoint, long statementsBefore) {
+		meterRegistry.summary("feasto.listing.queries", "endpoint", endpoint)
+				.record(QueryCountInspector.currentCount() - statementsBefore);
+	}
+
+	/**
+	 * Dish search: every word of q must appear in the dish name, description or
+	 * category. With lat/lon only restaurants within radiusKm count. Served from
+	 * the in-memory dish index, with facet counts for cuisine, category, price
+	 * band and availability. A blank q returns no hits.
+	 */
+	public DishSearchResultDTO searchDishes(String q, Double lat, Double lon, double radiusKm, String cuisine,
+			String category, Double minPrice, Double maxPrice, boolean availableOnly, int page, int limit) {
+		// The index is built once at startup; until then, and for a query with no
+		// words, there is nothing to match, so skip the nearby lookup as well
+		if (!dishIndex.isReady() || DishSearchIndex.tokenize(q).isEmpty()) {
+			return new DishSearchResultDTO(new ArrayList<>(), page, limit, 0, new LinkedHashMap<>());
+		}
+		Map<Long, Double> distances = null;
+		if (lat != null && lon != null) {
+			NearbyCandidates c = nearbyCellCacheEnabled ? nearbySearchCache.candidates(lat, lon, radiusKm)
+					: restaurantRepository.findNearbyCandidates(lat, lon, radiusKm);
+			distances = new HashMap<>();
+			long[] ids = c.getRestaurantIds();
+			double[] d = new double[c.size()];
+			DistanceUtil.haversineWithin(lat, lon, c.getLatitudes(), c.getLongitudes(), c.size(), radiusKm, d);
+			DeliveryZoneIndex.Coverage coverage = deliveryCoverage(lat, lon);
+			for (int i = 0; i < c.size(); i++) {
+				if (d[i] <= radiusKm && (coverage == null || coverage.allows(ids[i])))
+					distances.put(ids[i], d[i]);
+			}
+		}
+		DishSearchIndex.Result result = dishIndex.search(q,
+				new DishSearchIndex.Filter(cuisine, category, minPrice, maxPrice, availableOnly, distances),
+				page * limit, limit);
+		List<DishHitDTO> content = new ArrayList<>(result.getHits().size());
+		for (DishSearchIndex.Hit hit : result.getHits()) {
+			content.add(new DishHitDTO(hit.getItem(), hit.getRestaurantName(), hit.getCuisine(), hit.getDistanceKm()));
+		}
+		return new DishSearchResultDTO(content, page, limit, result.getTotal(), result.getFacets());
+	}
 
-		PageImpl<RestaurantDTO> pageImpl = new PageImpl<>(dtos, pageable, pageObjs.getTotalElements());
-		return pageImpl;
+	// Browse active restaurants by any combination of cuisines, cities and
+	// minimum rating, resolved on the bitmap index and served from cached
+	// listing cards. Empty until the index has loaded at startup.
+	public Page<RestaurantDTO> browseRestaurants(List<String> cuisines, List<String> cities, Double minRating,
+			int page, int limit) {
+		Pageable pageable = PageRequest.of(page, limit);
+		if (!filterIndex.isReady()) {
+			return new PageImpl<>(new ArrayList<>(), pageable, 0);
+		}
+		RestaurantFilterIndex.Page hits = filterIndex.query(
+				new RestaurantFilterIndex.Filter(cuisines, cities, minRating, true),
+				(int) pageable.getOffset(), limit);
+		List<Long> ids = new ArrayList<>();
+		for (long id : hits.getRestaurantIds())
+			ids.add(id);
+		Map<Long, RestaurantDTO> cards = listingCards(ids);
+		List<RestaurantDTO> dtos = new ArrayList<>(ids.size());
+		for (Long id : ids) {
+			RestaurantDTO card = cards.get(id);
+			if (card != null)
+				dtos.add(card);
+		}
+		return new PageImpl<>(dtos, pageable, hits.getTotal());
+	}
+
+	// Clustered restaurant markers for one z/x/y map tile. Until the tile index
+	// has loaded at startup the best rated restaurants in the tile are read from
+	// the database as single markers, uncached
+	public MapTileDTO getMapTile(int z, int x, int y) {
+		if (z < 0 || z > TileMath.MAX_ZOOM || x < 0 || y < 0 || x >= (1 << z) || y >= (1 << z)) {
+			throw new ValidationException("Invalid tile: " + z + "/" + x + "/" + y);
+		}
+		if (!tileIndex.isReady()) {
+			return mapTileFromDatabase(z, x, y);
+		}
+		return tileCache.tile(z, x, y);
+	}
+
+	private MapTileDTO mapTileFromDatabase(int z, int x, int y) {
+		double north = TileMath.tileLat(y, z), south = TileMath.tileLat(y + 1, z);
+		double west = TileMath.tileLon(x, z), east = TileMath.tileLon(x + 1, z);
+		List<TileClusterDTO> markers = new ArrayList<>();
+		for (Object[] row : restaurantRepository.findActiveMarkersInBox(south, north, west, east,
+				PageRequest.of(0, tileFallbackLimit))) {
+			markers.add(new TileClusterDTO((Double) row[3], (Double) row[4], 1, (Long) row[0], (String) row[1],
+					row[2] != null ? (Double) row[2] : 0.0));
+		}
+		int total = markers.size() < tileFallbackLimit ? markers.size()
+				: (int) restaurantRepository.countActiveInBox(south, north, west, east);
+		return new MapTileDTO(z, x, y, total, markers);
+	}
+
+	public List<SuggestionDTO> suggest(String prefix, int limit) {
+		return suggestionTrie.suggest(prefix, limit);
 	}
 
 	// New: random restaurants for first visit
-	public List<RestaurantDTO> findRandomRestaurants(int limit) {
-		List<Restaurant> restaurants = restaurantRepository.findRandomRestaurants(limit);
-		List<RestaurantDTO> dtos = restaurants.stream().map(r -> {
-			RestaurantDTO dto = mapper.toRestaurantDTO(r);
-			// attach top 3 menu items
-			// will change later to use a "isSpecial" flag or depend on frequently ordered
-			List<MenuItemDTO> specials = menuItemRepository.findByRestaurant_RestaurantId(r.getRestaurantId())
-					.stream()
-					.filter(m -> Boolean.TRUE.equals(m.getIsAvailable()))
-					.limit(3)
-					.map(mapper::toMenuItemDTO)
-					.collect(Collectors.toList());
-			dto.setSpecialMenuItems(specials);
-			return dto;
-		}).collect(Collectors.toList());
+	// Ids sampled from the in-memory pool, served from cached listing cards; only
+	// cards not cached yet are read from the database
+	public List<RestaurantDTO> findRandomRestaurants(int limit, String city) {
+		long statementsBefore = QueryCountInspector.currentCount();
+		List<Long> ids = randomPool.sample(limit, city);
+		Map<Long, RestaurantDTO> cards = listingCards(ids);
+		List<RestaurantDTO> dtos = new ArrayList<>(ids.size());
+		for (Long id : ids) {
+			RestaurantDTO card = cards.get(id);
+			if (card != null)
+				dtos.add(card);
+		}
+		recordListingQueries("random", statementsBefore);
 		return dtos;
 	}
 
 	@Transactional(readOnly = true)
 	public Page<RestaurantDTO> getRestaurantsByCity(String city, int page, int limit) {
 		Pageable pageable = PageRequest.of(page, limit);
+		long statementsBefore = QueryCountInspector.currentCount();
 		org.springframework.data.domain.Page<Restaurant> pageRes = restaurantRepository
 				.findByAddress_CityIgnoreCaseAndIsActiveTrue(city, pageable);
-		List<RestaurantDTO> dtos = pageRes.getContent().stream().map(r -> {
-			RestaurantDTO dto = mapper.toRestaurantDTO(r);
-			List<MenuItemDTO> specials = menuItemRepository.findByRestaurant_RestaurantId(r.getRestaurantId())
-					.stream()
-					.filter(m -> Boolean.TRUE.equals(m.getIsAvailable()))
-					.limit(3)
-					.map(mapper::toMenuItemDTO)
-					.collect(Collectors.toList());
-			dto.setSpecialMenuItems(specials);
-			return dto;
-		}).collect(Collectors.toList());
+		List<RestaurantDTO> dtos = pageRes.getContent().stream().map(mapper::toRestaurantDTO)
+				.collect(Collectors.toList());
+		attachSpecialMenuItems(dtos);
+		recordListingQueries("city", statementsBefore);
 		return new PageImpl<>(dtos, pageable, pageRes.getTotalElements());
 	}
 
-	// New: fuzzy search by name. Returns paged RestaurantDTOs.
+	// New: fuzzy search by name. Returns paged RestaurantDTOs. Substring matches
+	// come back as a Page with a DB count; fuzzy matches as a Slice, since only
+	// the trigram shortlist is ranked and the number of names that would match
+	// beyond it is unknown.
 	@Transactional(readOnly = true)
-	public Page<RestaurantDTO> searchRestaurantsByName(String name, int page, int limit) {
+	public Slice<RestaurantDTO> searchRestaurantsByName(String name, int page, int limit) {
 		Pageable pageable = PageRequest.of(page, limit);
 		// First try simple DB contains search
 		Page<Restaurant> results = restaurantRepository
@@ -330,37 +867,44 @@ public class RestaurantService {
 			return new PageImpl<>(dtos, pageable, results.getTotalElements());
 		}
 
-		// Fallback: fuzzy match over all active restaurants using Levenshtein distance
-		List<Restaurant> allActive = restaurantRepository.findByIsActiveTrue();
-		final String q = name == null ? "" : name.trim().toLowerCase();
-		// compute distance and score using simple ScoreHolder
-		class ScoreHolder {
-			final Restaurant r;
-			final int score;
-
-			ScoreHolder(Restaurant r, int score) {
-				this.r = r;
-				this.score = score;
+		// Fallback: fuzzy match. The trigram index shortlists the names sharing the
+		// most trigrams with the query and only those are scored by Levenshtein
+		// distance; all active restaurants are scored only until the index loads.
+		final String q = RestaurantNameIndex.normalize(name);
+		List<RestaurantNameIndex.Match> candidates;
+		if (nameIndex.isReady()) {
+			candidates = nameIndex.shortlist(q, fuzzyShortlistSize);
+		} else {
+			candidates = new ArrayList<>();
+			for (Restaurant r : restaurantRepository.findByIsActiveTrue()) {
+				candidates.add(new RestaurantNameIndex.Match(r.getRestaurantId(),
+						RestaurantNameIndex.normalize(r.getName())));
 			}
 		}
 
-		List<ScoreHolder> scored = allActive.stream()
-				.map(r -> new ScoreHolder(r,
-						levenshteinDistance(r.getName() == null ? "" : r.getName().toLowerCase(), q)))
-				.sorted((a, b) -> Integer.compare(a.score, b.score))
-				.collect(Collectors.toList());
-
-		// take top page*limit..(page+1)*limit
+		// take top page*limit..(page+1)*limit by (distance, id)
 		int start = page * limit;
-		int end = Math.min(start + limit, scored.size());
 		List<RestaurantDTO> dtos = new ArrayList<>();
-		if (start < end) {
-			List<ScoreHolder> slice = scored.subList(start, end);
-			for (ScoreHolder p : slice) {
-				dtos.add(mapper.toRestaurantDTO(p.r));
+		if (start < candidates.size()) {
+			TopKSelector top = new TopKSelector(Math.min(candidates.size(), start + limit));
+			for (int i = 0; i < candidates.size(); i++) {
+				RestaurantNameIndex.Match m = candidates.get(i);
+				top.offer(i, levenshteinDistance(m.getName(), q), m.getRestaurantId());
+			}
+			int[] ranked = top.drainSorted();
+			List<Long> pageIds = new ArrayList<>();
+			for (int i = start; i < ranked.length; i++)
+				pageIds.add(candidates.get(ranked[i]).getRestaurantId());
+			Map<Long, Restaurant> byId = new HashMap<>();
+			for (Restaurant r : restaurantRepository.findAllById(pageIds))
+				byId.put(r.getRestaurantId(), r);
+			for (Long id : pageIds) {
+				Restaurant r = byId.get(id);
+				if (r != null)
+					dtos.add(mapper.toRestaurantDTO(r));
 			}
 		}
-		return new PageImpl<>(dtos, pageable, scored.size());
+		return new SliceImpl<>(dtos, pageable, start + limit < candidates.size());
 	}
 
 	// Small Levenshtein implementation (could be extracted to util)
@@ -84,7 +84,7 @@ public class ReviewService {
                 return mapper.toReviewDTO(saved);
         }
 
-        @Cacheable(value = "reviewsByRestaurant", key = "#restaurantId")
+        @Cacheable(value = "reviewsByRestaurant", key = "#restaurantId", sync = true)
         public List<ReviewDTO> getReviewsByRestaurantId(Long restaurantId) {
                 restaurantRepository.findById(restaurantId)
                                 .orElseThrow(() -> new ResourceNotFoundException(
@@ -1,6 +1,9 @@
 package com.tka.feasto.util;
 
 public class DistanceUtil {
+
+    private static final double EARTH_RADIUS_KM = 6371;
+
     // Haversine formula to calculate distance in kilometers between two lat/lon
     // points
     public static double haversine(double lat1, double lon1, double lat2, double lon2) {
@@ -13,4 +16,45 @@ public class DistanceUtil {
         double c = 2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a));
         return R * c;
     }
+
+    /**
+     * Haversine from one origin to the first {@code count} points of lats/lons.
+     * out[i] gets the distance in km, or Double.POSITIVE_INFINITY when the point
+     * is farther than maxKm; returns how many points are within maxKm.
+     *
+     * The origin's cosine is computed once, and each point is first screened
+     * with an equirectangular lower bound on its distance (latitude gap, plus
+     * the longitude gap scaled by the cosine of the highest latitude a point
+     * within maxKm can reach), so the trig chain only runs for points that can
+     * be in range. Distances that are computed match {@link #haversine} exactly.
+     */
+    public static int haversineWithin(double lat, double lon, double[] lats, double[] lons, int count, double maxKm,
+            double[] out) {
+        double cosLat = Math.cos(Math.toRadians(lat));
+        double maxRad = maxKm / EARTH_RADIUS_KM;
+        double maxRadSq = maxRad * maxRad;
+        double cosMaxLat = Math.cos(Math.min(Math.PI / 2, Math.abs(Math.toRadians(lat)) + maxRad));
+        int within = 0;
+        for (int i = 0; i < count; i++) {
+            double dLat = Math.toRadians(lats[i] - lat);
+            double dLon = Math.toRadians(lons[i] - lon);
+            // the bound needs the shorter way round the antimeridian
+            double x = (Math.abs(dLon) > Math.PI ? 2 * Math.PI - Math.abs(dLon) : dLon) * cosMaxLat;
+            if (dLat * dLat + x * x > maxRadSq) {
+                out[i] = Double.POSITIVE_INFINITY;
+                continue;
+            }
+            double sinLat = Math.sin(dLat / 2);
+            double sinLon = Math.sin(dLon / 2);
+            double a = sinLat * sinLat + cosLat * Math.cos(Math.toRadians(lats[i])) * sinLon * sinLon;
+            double d = EARTH_RADIUS_KM * (2 * Math.atan2(Math.sqrt(a), Math.sqrt(1 - a)));
+            if (d <= maxKm) {
+                out[i] = d;
+                within++;
+            } else {
+                out[i] = Double.POSITIVE_INFINITY;
+            }
+        }
+        return within;
+    }
 }
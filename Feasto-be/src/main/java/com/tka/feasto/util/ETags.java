@@ -0,0 +1,50 @@
+package com.tka.feasto.util;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+/**
+ * Strong ETags built from in-memory version counters.
+ *
+ * Counters restart at zero with the JVM, so every tag carries this node's
+ * start time: a tag issued before a restart (or by another node) never
+ * matches and the client just gets a full 200.
+ */
+public class ETags {
+
+    private static final String NODE_EPOCH = Long.toString(System.currentTimeMillis(), 36);
+
+    private static final String GZIP_SUFFIX = "-gz";
+
+    // "<part>-<part>-...-<epoch>"
+    public static String strong(Object... parts) {
+        StringBuilder sb = new StringBuilder("\"");
+        for (Object part : parts)
+            sb.append(part).append('-');
+        return sb.append(NODE_EPOCH).append('"').toString();
+    }
+
+    // Tag of the gzip-encoded representation (strong tags differ per encoding)
+    public static String gzip(String etag) {
+        return etag.substring(0, etag.length() - 1) + GZIP_SUFFIX + "\"";
+    }
+
+    // True if If-None-Match lists this tag, its gzip variant, or *
+    public static boolean matches(String ifNoneMatch, String etag) {
+        if (etag == null || ifNoneMatch == null || ifNoneMatch.isBlank())
+            return false;
+        String gzipped = gzip(etag);
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.startsWith("W/"))
+                tag = tag.substring(2); // If-None-Match uses weak comparison
+            if (tag.equals("*") || tag.equals(etag) || tag.equals(gzipped))
+                return true;
+        }
+        return false;
+    }
+
+    public static <T> ResponseEntity<T> notModified(String etag) {
+        return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+    }
+}
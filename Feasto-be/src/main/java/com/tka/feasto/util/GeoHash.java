@@ -0,0 +1,101 @@
+package com.tka.feasto.util;
+
+import java.util.Arrays;
+
+/**
+ * Minimal base32 geohash encoder/decoder. Used to snap search origins to a
+ * shared grid cell so nearby users share cache entries.
+ */
+public class GeoHash {
+
+    private static final char[] BASE32 = "0123456789bcdefghjkmnpqrstuvwxyz".toCharArray();
+    private static final int[] DECODE = new int[128];
+
+    static {
+        Arrays.fill(DECODE, -1);
+        for (int i = 0; i < BASE32.length; i++)
+            DECODE[BASE32[i]] = i;
+    }
+
+    public static String encode(double lat, double lon, int precision) {
+        double minLat = -90, maxLat = 90, minLon = -180, maxLon = 180;
+        StringBuilder sb = new StringBuilder(precision);
+        boolean evenBit = true; // bits alternate lon, lat, lon, ...
+        int bit = 0;
+        int ch = 0;
+        while (sb.length() < precision) {
+            if (evenBit) {
+                double mid = (minLon + maxLon) / 2;
+                if (lon >= mid) {
+                    ch = (ch << 1) | 1;
+                    minLon = mid;
+                } else {
+                    ch = ch << 1;
+                    maxLon = mid;
+                }
+            } else {
+                double mid = (minLat + maxLat) / 2;
+                if (lat >= mid) {
+                    ch = (ch << 1) | 1;
+                    minLat = mid;
+                } else {
+                    ch = ch << 1;
+                    maxLat = mid;
+                }
+            }
+            evenBit = !evenBit;
+            if (++bit == 5) {
+                sb.append(BASE32[ch]);
+                bit = 0;
+                ch = 0;
+            }
+        }
+        return sb.toString();
+    }
+
+    // Returns the cell bounds as {minLat, maxLat, minLon, maxLon}
+    public static double[] bounds(String geohash) {
+        double minLat = -90, maxLat = 90, minLon = -180, maxLon = 180;
+        boolean evenBit = true;
+        for (int i = 0; i < geohash.length(); i++) {
+            char c = geohash.charAt(i);
+            int value = c < DECODE.length ? DECODE[c] : -1;
+            if (value < 0)
+                throw new IllegalArgumentException("Invalid geohash: " + geohash);
+            for (int b = 4; b >= 0; b--) {
+                int bitValue = (value >> b) & 1;
+                if (evenBit) {
+                    double mid = (minLon + maxLon) / 2;
+                    if (bitValue == 1)
+                        minLon = mid;
+                    else
+                        maxLon = mid;
+                } else {
+                    double mid = (minLat + maxLat) / 2;
+                    if (bitValue == 1)
+                        minLat = mid;
+                    else
+                        maxLat = mid;
+                }
+                evenBit = !evenBit;
+            }
+        }
+        return new double[] { minLat, maxLat, minLon, maxLon };
+    }
+
+    // Cell center as {lat, lon}
+    public static double[] center(String geohash) {
+        double[] b = bounds(geohash);
+        return new double[] { (b[0] + b[1]) / 2, (b[2] + b[3]) / 2 };
+    }
+
+    // Distance in km from the cell center to its farthest corner
+    public static double halfDiagonalKm(String geohash) {
+        double[] b = bounds(geohash);
+        double centerLat = (b[0] + b[1]) / 2;
+        double centerLon = (b[2] + b[3]) / 2;
+        // the corner nearer the equator is the widest one
+        double cornerLat = Math.abs(b[0]) < Math.abs(b[1]) ? b[0] : b[1];
+        return DistanceUtil.haversine(centerLat, centerLon, cornerLat, b[3]);
+    }
+}
@@ -0,0 +1,62 @@
+package com.tka.feasto.util;
+
+/**
+ * Web Mercator (slippy map) tile coordinates and Morton (Z-order) codes.
+ *
+ * Interleaving a tile's x and y bits gives its Z-order code; the tiles under
+ * any z/x/y then share that code as a prefix, so a tile maps to one contiguous
+ * range of codes at a finer zoom.
+ */
+public class TileMath {
+
+    // Finest zoom points are encoded at (~2.4 m tiles); codes use 48 bits
+    public static final int MAX_ZOOM = 24;
+
+    private static final double MAX_LATITUDE = 85.05112878;
+
+    public static int tileX(double lon, int zoom) {
+        int n = 1 << zoom;
+        int x = (int) Math.floor((lon + 180.0) / 360.0 * n);
+        return Math.max(0, Math.min(n - 1, x));
+    }
+
+    public static int tileY(double lat, int zoom) {
+        int n = 1 << zoom;
+        double clamped = Math.max(-MAX_LATITUDE, Math.min(MAX_LATITUDE, lat));
+        double rad = Math.toRadians(clamped);
+        int y = (int) Math.floor((1 - Math.log(Math.tan(rad) + 1 / Math.cos(rad)) / Math.PI) / 2 * n);
+        return Math.max(0, Math.min(n - 1, y));
+    }
+
+    // Longitude of the west edge of tile column x
+    public static double tileLon(int x, int zoom) {
+        return (double) x / (1 << zoom) * 360.0 - 180.0;
+    }
+
+    // Latitude of the north edge of tile row y
+    public static double tileLat(int y, int zoom) {
+        double n = Math.PI * (1 - 2.0 * y / (1 << zoom));
+        return Math.toDegrees(Math.atan(Math.sinh(n)));
+    }
+
+    // Z-order code of tile (x, y): x bits on even positions, y bits on odd ones
+    public static long morton(int x, int y) {
+        return spread(x) | (spread(y) << 1);
+    }
+
+    // Z-order code of the MAX_ZOOM tile containing the point
+    public static long morton(double lat, double lon) {
+        return morton(tileX(lon, MAX_ZOOM), tileY(lat, MAX_ZOOM));
+    }
+
+    // Inserts a zero bit after each of the low 32 bits of v
+    private static long spread(int v) {
+        long x = v & 0xFFFFFFFFL;
+        x = (x | (x << 16)) & 0x0000FFFF0000FFFFL;
+        x = (x | (x << 8)) & 0x00FF00FF00FF00FFL;
+        x = (x | (x << 4)) & 0x0F0F0F0F0F0F0F0FL;
+        x = (x | (x << 2)) & 0x3333333333333333L;
+        x = (x | (x << 1)) & 0x5555555555555555L;
+        return x;
+    }
+}
@@ -0,0 +1,111 @@
+package com.tka.feasto.util;
+
+/**
+ * Bounded max-heap that keeps the k best (smallest) {@code (key, tieBreak)}
+ * pairs offered to it. Candidates are referenced by an int slot so callers can
+ * rank large primitive arrays without boxing or sorting the whole list.
+ */
+public class TopKSelector {
+
+    private final int capacity;
+    private final int[] slots;
+    private final double[] keys;
+    private final long[] ties;
+    private int size;
+
+    public TopKSelector(int capacity) {
+        this.capacity = Math.max(0, capacity);
+        this.slots = new int[this.capacity];
+        this.keys = new double[this.capacity];
+        this.ties = new long[this.capacity];
+    }
+
+    public void offer(int slot, double key, long tieBreak) {
+        if (capacity == 0)
+            return;
+        if (size < capacity) {
+            slots[size] = slot;
+            keys[size] = key;
+            ties[size] = tieBreak;
+            siftUp(size++);
+            return;
+        }
+        // heap root is the worst retained candidate; ignore anything not better
+        if (compare(key, tieBreak, 0) >= 0)
+            return;
+        slots[0] = slot;
+        keys[0] = key;
+        ties[0] = tieBreak;
+        siftDown(0);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // Key of the worst retained candidate (the heap root); requires size() > 0
+    public double worstKey() {
+        return keys[0];
+    }
+
+    // Returns the retained slots ordered best-first and empties the selector
+    public int[] drainSorted() {
+        int[] out = new int[size];
+        for (int i = out.length - 1; i >= 0; i--) {
+            out[i] = slots[0];
+            size--;
+            if (size > 0) {
+                move(size, 0);
+                siftDown(0);
+            }
+        }
+        return out;
+    }
+
+    private int compare(double key, long tieBreak, int heapIndex) {
+        int c = Double.compare(key, keys[heapIndex]);
+        return c != 0 ? c : Long.compare(tieBreak, ties[heapIndex]);
+    }
+
+    private void siftUp(int i) {
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (compare(keys[i], ties[i], parent) <= 0)
+                break;
+            swap(i, parent);
+            i = parent;
+        }
+    }
+
+    private void siftDown(int i) {
+        while (true) {
+            int left = 2 * i + 1;
+            if (left >= size)
+                return;
+            int largest = left;
+            int right = left + 1;
+            if (right < size && compare(keys[right], ties[right], left) > 0)
+                largest = right;
+            if (compare(keys[i], ties[i], largest) >= 0)
+                return;
+            swap(i, largest);
+            i = largest;
+        }
+    }
+
+    private void move(int from, int to) {
+        slots[to] = slots[from];
+        keys[to] = keys[from];
+        ties[to] = ties[from];
+    }
+
+    private void swap(int a, int b) {
+        int s = slots[a];
+        double k = keys[a];
+        long t = ties[a];
+        move(b, a);
+        slots[b] = s;
+        keys[b] = k;
+        ties[b] = t;
+    }
+}
@@ -0,0 +1,257 @@
+package com.tka.feasto.mapper;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.modelmapper.ModelMapper;
+
+import com.tka.feasto.dto.AddressDTO;
+import com.tka.feasto.dto.DeliveryPartnerDTO;
+import com.tka.feasto.dto.LocationDTO;
+import com.tka.feasto.dto.LoyaltyProgramDTO;
+import com.tka.feasto.dto.MenuItemDTO;
+import com.tka.feasto.dto.NotificationDTO;
+import com.tka.feasto.dto.PaymentDTO;
+import com.tka.feasto.dto.RestaurantDTO;
+import com.tka.feasto.dto.ReviewDTO;
+import com.tka.feasto.dto.UserDTO;
+import com.tka.feasto.entity.Address;
+import com.tka.feasto.entity.DeliveryPartner;
+import com.tka.feasto.entity.Location;
+import com.tka.feasto.entity.LoyaltyProgram;
+import com.tka.feasto.entity.MenuItem;
+import com.tka.feasto.entity.Notification;
+import com.tka.feasto.entity.Order;
+import com.tka.feasto.entity.Payment;
+import com.tka.feasto.entity.Restaurant;
+import com.tka.feasto.entity.Review;
+import com.tka.feasto.entity.User;
+import com.tka.feasto.enums.MembershipType;
+import com.tka.feasto.enums.OrderStatus;
+import com.tka.feasto.enums.PaymentMethod;
+import com.tka.feasto.enums.PaymentStatus;
+import com.tka.feasto.enums.Role;
+
+/**
+ * The explicit entity -> DTO mappers against the ModelMapper mappings they
+ * replaced: every field of every DTO must come out the same (DTO equals is
+ * field by field), including nested ids and renamed properties.
+ */
+class CustomMapperTest {
+
+    private static final LocalDateTime CREATED = LocalDateTime.of(2025, 1, 1, 10, 0);
+    private static final LocalDateTime UPDATED = LocalDateTime.of(2025, 6, 1, 10, 0);
+
+    private final CustomMapper mapper = new CustomMapper();
+    private final ModelMapper modelMapper = new ModelMapper();
+
+    @Test
+    void userMatchesModelMapper() {
+        User user = user();
+        assertEquals(modelMapper.map(user, UserDTO.class), mapper.toUserDTO(user));
+        assertNotSame(user.getAddress(), mapper.toUserDTO(user).getAddress());
+    }
+
+    @Test
+    void restaurantMatchesModelMapper() {
+        Restaurant restaurant = restaurant();
+        assertEquals(modelMapper.map(restaurant, RestaurantDTO.class), mapper.toRestaurantDTO(restaurant));
+        assertNotSame(restaurant.getAddress(), mapper.toRestaurantDTO(restaurant).getAddress());
+    }
+
+    @Test
+    void restaurantCopyMatchesModelMapper() {
+        RestaurantDTO source = mapper.toRestaurantDTO(restaurant());
+        source.setDistanceKm(2.5);
+        List<MenuItemDTO> specials = new ArrayList<>();
+        for (MenuItem item : restaurant().getMenuItems())
+            specials.add(mapper.toMenuItemDTO(item));
+        source.setSpecialMenuItems(specials);
+
+        RestaurantDTO copy = mapper.copyRestaurantDTO(source);
+        assertEquals(modelMapper.map(source, RestaurantDTO.class), copy);
+        assertNotSame(source.getSpecialMenuItems(), copy.getSpecialMenuItems());
+    }
+
+    @Test
+    void menuItemMatchesModelMapper() {
+        for (MenuItem item : restaurant().getMenuItems())
+            assertEquals(modelMapper.map(item, MenuItemDTO.class), mapper.toMenuItemDTO(item));
+    }
+
+    @Test
+    void deliveryPartnerMatchesModelMapper() {
+        DeliveryPartner partner = deliveryPartner();
+        DeliveryPartnerDTO dto = mapper.toDeliveryPartnerDTO(partner);
+        assertEquals(modelMapper.map(partner, DeliveryPartnerDTO.class), dto);
+        assertEquals(partner.getAverageRating(), dto.getRating());
+    }
+
+    @Test
+    void reviewMatchesModelMapper() {
+        Review review = new Review();
+        review.setReviewId(5L);
+        review.setUser(user());
+        review.setRestaurant(restaurant());
+        review.setOrder(order());
+        review.setDeliveryPartner(deliveryPartner());
+        review.setRating(4);
+        review.setComment("Hot and on time");
+        review.setReviewTime(UPDATED);
+        assertEquals(modelMapper.map(review, ReviewDTO.class), mapper.toReviewDTO(review));
+    }
+
+    @Test
+    void paymentMatchesModelMapper() {
+        Payment payment = new Payment();
+        payment.setPaymentId(9L);
+        payment.setOrder(order());
+        payment.setUser(user());
+        payment.setAmount(459.0);
+        payment.setPaymentMethod(PaymentMethod.UPI);
+        payment.setPaymentStatus(PaymentStatus.COMPLETED);
+        payment.setTransactionId("txn-9");
+        payment.setPaymentTime(UPDATED);
+        assertEquals(modelMapper.map(payment, PaymentDTO.class), mapper.toPaymentDTO(payment));
+    }
+
+    @Test
+    void loyaltyProgramMatchesModelMapper() {
+        LoyaltyProgram loyalty = new LoyaltyProgram();
+        loyalty.setLoyaltyId(3L);
+        loyalty.setUser(user());
+        loyalty.setMembershipType(MembershipType.GOLD);
+        loyalty.setStartDate(CREATED);
+        loyalty.setEndDate(UPDATED);
+        loyalty.setBenefits("Free delivery");
+        assertEquals(modelMapper.map(loyalty, LoyaltyProgramDTO.class), mapper.toLoyaltyProgramDTO(loyalty));
+    }
+
+    @Test
+    void addressAndLocationMatchModelMapper() {
+        Address address = address();
+        assertEquals(modelMapper.map(address, AddressDTO.class), mapper.toAddressDTO(address));
+        Location location = new Location(18.53, 73.86);
+        assertEquals(modelMapper.map(location, LocationDTO.class), mapper.toLocationDTO(location));
+    }
+
+    @Test
+    void notificationMatchesModelMapper() {
+        for (Boolean read : new Boolean[] { true, false }) {
+            Notification n = new Notification();
+            n.setId(11L);
+            n.setType("ORDER_PLACED");
+            n.setMessage("New order placed by user #1");
+            n.setRecipientId(1L);
+            n.setRecipientRole("RESTAURANT");
+            n.setTimestamp(UPDATED);
+            n.setIsRead(read);
+            assertEquals(modelMapper.map(n, NotificationDTO.class), mapper.toNotificationDTO(n));
+        }
+    }
+
+    @Test
+    void nullEntitiesMapToNull() {
+        assertNull(mapper.toUserDTO(null));
+        assertNull(mapper.toRestaurantDTO(null));
+        assertNull(mapper.copyRestaurantDTO(null));
+        assertNull(mapper.toMenuItemDTO(null));
+        assertNull(mapper.toDeliveryPartnerDTO(null));
+        assertNull(mapper.toReviewDTO(null));
+        assertNull(mapper.toPaymentDTO(null));
+        assertNull(mapper.toLoyaltyProgramDTO(null));
+        assertNull(mapper.toAddressDTO(null));
+        assertNull(mapper.toLocationDTO(null));
+        assertNull(mapper.toNotificationDTO(null));
+    }
+
+    private static Address address() {
+        return new Address("MG Road 1", "Pune", "MH", "411001", "India", 18.52, 73.85);
+    }
+
+    private static User user() {
+        User user = new User();
+        user.setUserId(1L);
+        user.setName("Asha");
+        user.setEmail("asha@feasto.test");
+        user.setPhoneNumber("9000000001");
+        user.setPassword("secret");
+        user.setAddress(address());
+        user.setRole(Role.CUSTOMER);
+        user.setCreatedAt(CREATED);
+        user.setUpdatedAt(UPDATED);
+        return user;
+    }
+
+    private static DeliveryPartner deliveryPartner() {
+        DeliveryPartner partner = new DeliveryPartner();
+        partner.setDeliveryPartnerId(7L);
+        partner.setName("Ravi");
+        partner.setPhoneNumber("9000000007");
+        partner.setEmail("ravi@feasto.test");
+        partner.setPassword("secret");
+        partner.setVehicleDetails("MH12 AB 1234");
+        partner.setRole(Role.DELIVERY_PARTNER);
+        partner.setAvailable(true);
+        partner.setCurrentLocation(new Location(18.53, 73.86));
+        partner.setAverageRating(4.6);
+        partner.setCreatedAt(CREATED);
+        partner.setUpdatedAt(UPDATED);
+        return partner;
+    }
+
+    private static Order order() {
+        Order order = new Order();
+        order.setOrderId(42L);
+        order.setUser(user());
+        order.setRestaurant(restaurant());
+        order.setDeliveryPartner(deliveryPartner());
+        order.setOrderStatus(OrderStatus.DELIVERED);
+        order.setTotalAmount(459.0);
+        order.setDeliveryAddress(address());
+        order.setOrderTime(CREATED);
+        order.setDeliveryTime(UPDATED);
+        return order;
+    }
+
+    private static Restaurant restaurant() {
+        Restaurant r = new Restaurant();
+        r.setRestaurantId(2L);
+        r.setName("Restaurant 2");
+        r.setDescription("North Indian and tandoor");
+        r.setAddress(address());
+        r.setDeliveryZone(List.of(new Location(18.5, 73.8), new Location(18.6, 73.8), new Location(18.6, 73.9)));
+        r.setPhoneNumber("9000000000");
+        r.setEmail("r2@feasto.test");
+        r.setPassword("secret");
+        r.setCuisineType("Indian");
+        r.setRating(4.2);
+        r.setIsActive(true);
+        r.setRole(Role.RESTAURANT_OWNER);
+        r.setCreatedAt(CREATED);
+        r.setUpdatedAt(UPDATED);
+        r.setImageUrl("https://img.test/r2.jpg");
+        r.setCloudinaryPublicId("r2");
+        for (int i = 0; i < 3; i++) {
+            MenuItem item = new MenuItem();
+            item.setMenuItemId(200L + i);
+            item.setRestaurant(r);
+            item.setName("Dish " + i);
+            item.setDescription("House special");
+            item.setPrice(150.0 + i);
+            item.setCategory("Main Course");
+            item.setIsAvailable(i % 2 == 0);
+            item.setRating(4.0);
+            item.setImageUrl("https://img.test/d" + i + ".jpg");
+            item.setCloudinaryPublicId("d" + i);
+            r.getMenuItems().add(item);
+        }
+        return r;
+    }
+}
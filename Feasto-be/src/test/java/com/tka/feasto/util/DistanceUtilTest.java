@@ -0,0 +1,65 @@
+package com.tka.feasto.util;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/**
+ * Batch haversine against the per-point scalar one it replaced: the same
+ * distance (within EPSILON_KM) for every point inside the cutoff, +Inf for
+ * every point past it, and the same in-range count.
+ */
+class DistanceUtilTest {
+
+    private static final int POINTS = 20_000;
+    private static final double EPSILON_KM = 1e-9;
+
+    @Test
+    void batchMatchesScalarHaversine() {
+        Random random = new Random(7);
+        double[] lats = new double[POINTS];
+        double[] lons = new double[POINTS];
+        double[] out = new double[POINTS];
+        // a metro, points near the poles and points across the antimeridian
+        for (double[] origin : new double[][] { { 18.52, 73.85 }, { 89.9, 10.0 }, { -89.95, -120.0 },
+                { 0.0, 179.99 }, { 0.0, -179.99 } }) {
+            fill(random, lats, lons, origin[0], origin[1], 0.3);
+            for (double radius : new double[] { 0.5, 10.0, 50.0 }) {
+                int within = DistanceUtil.haversineWithin(origin[0], origin[1], lats, lons, POINTS, radius, out);
+                int expected = 0;
+                for (int i = 0; i < POINTS; i++) {
+                    double d = DistanceUtil.haversine(origin[0], origin[1], lats[i], lons[i]);
+                    if (d <= radius) {
+                        expected++;
+                        assertEquals(d, out[i], EPSILON_KM);
+                    } else {
+                        assertEquals(Double.POSITIVE_INFINITY, out[i]);
+                    }
+                }
+                assertEquals(expected, within);
+            }
+        }
+    }
+
+    @Test
+    void onlyTheFirstCountPointsAreWritten() {
+        double[] lats = { 18.52, 18.53, 18.54 };
+        double[] lons = { 73.85, 73.85, 73.85 };
+        double[] out = { -1, -1, -1 };
+        assertEquals(2, DistanceUtil.haversineWithin(18.52, 73.85, lats, lons, 2, 10.0, out));
+        assertEquals(0.0, out[0], EPSILON_KM);
+        assertEquals(DistanceUtil.haversine(18.52, 73.85, 18.53, 73.85), out[1], EPSILON_KM);
+        assertEquals(-1.0, out[2]);
+    }
+
+    // Uniform points within +-spread degrees of (lat, lon), wrapped onto the globe
+    private static void fill(Random random, double[] lats, double[] lons, double lat, double lon, double spread) {
+        for (int i = 0; i < lats.length; i++) {
+            lats[i] = Math.max(-90, Math.min(90, lat + (random.nextDouble() * 2 - 1) * spread));
+            double l = lon + (random.nextDouble() * 2 - 1) * spread;
+            lons[i] = l >= 180 ? l - 360 : l < -180 ? l + 360 : l;
+        }
+    }
+}